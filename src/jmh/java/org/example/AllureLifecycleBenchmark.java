@@ -0,0 +1,105 @@
+package org.example;
+
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.AllureResultsWriter;
+import io.qameta.allure.FileSystemResultsWriter;
+import io.qameta.allure.model.Status;
+import io.qameta.allure.model.StepResult;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.model.TestResultContainer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Накладные расходы Allure на один тест: те же вызовы lifecycle, что делает AllureTestNg
+ * (schedule/start/step/stop/write), с записью в файлы и с писателем, который всё отбрасывает.
+ * Разница между ними — цена сериализации и файлового I/O в потоке теста.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AllureLifecycleBenchmark {
+
+    @Param({"files", "discard"})
+    public String writer;
+
+    private Path directory;
+    private AllureLifecycle lifecycle;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("allure-bench");
+        lifecycle = new AllureLifecycle(writer.equals("files") ? new FileSystemResultsWriter(directory) : new DiscardingWriter());
+    }
+
+    // Между итерациями удаляем результаты, иначе каталог разрастается на сотни тысяч файлов
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public String testCase() {
+        String uuid = UUID.randomUUID().toString();
+        lifecycle.scheduleTestCase(new TestResult()
+                .setUuid(uuid)
+                .setName("givenValidCredentials_whenLogin_thenSuccess")
+                .setFullName("org.example.AuthTests.givenValidCredentials_whenLogin_thenSuccess"));
+        lifecycle.startTestCase(uuid);
+        String step = UUID.randomUUID().toString();
+        lifecycle.startStep(uuid, step, new StepResult().setName("POST /auth/login"));
+        lifecycle.updateStep(step, result -> result.setStatus(Status.PASSED));
+        lifecycle.stopStep(step);
+        lifecycle.updateTestCase(uuid, result -> result.setStatus(Status.PASSED));
+        lifecycle.stopTestCase(uuid);
+        lifecycle.writeTestCase(uuid);
+        return uuid;
+    }
+
+    private static final class DiscardingWriter implements AllureResultsWriter {
+
+        @Override
+        public void write(TestResult testResult) {
+        }
+
+        @Override
+        public void write(TestResultContainer testResultContainer) {
+        }
+
+        @Override
+        public void write(String source, InputStream attachment) {
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.example;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация JSON-тел так, как это делают тесты: конкатенация строк в логине
+ * и обновлении комментария против {@link JSONObject} при создании комментария.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BodySerializationBenchmark {
+
+    // Поля не final, чтобы JIT не свернул конкатенацию в константу
+    private String email = TestContext.DEFAULT_EMAIL;
+    private String password = TestContext.DEFAULT_PASSWORD;
+    private String postId = "3f0c2f4e-8d6a-4d9e-9c53-2b8f4a1e7c10";
+    private String text = "comment";
+
+    @Benchmark
+    public String loginConcat() {
+        return "{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}";
+    }
+
+    @Benchmark
+    public String loginJsonObject() {
+        JSONObject body = new JSONObject();
+        body.put("email", email);
+        body.put("password", password);
+        return body.toString();
+    }
+
+    @Benchmark
+    public String commentConcat() {
+        return "{\"postId\":\"" + postId + "\",\"text\":\"" + text + "\"}";
+    }
+
+    @Benchmark
+    public String commentJsonObject() {
+        JSONObject body = new JSONObject();
+        body.put("postId", postId);
+        body.put("text", text);
+        return body.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package org.example;
+
+import io.restassured.path.json.JsonPath;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Извлечение id/title/text из тела созданного поста: jsonPath по полю на вызов,
+ * один JsonPath на все поля, org.json и {@link JsonFields}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonExtractionBenchmark {
+
+    private static final JsonFields POST_FIELDS = JsonFields.of("id", "title", "text");
+
+    private final String body = new JSONObject()
+            .put("id", "3f0c2f4e-8d6a-4d9e-9c53-2b8f4a1e7c10")
+            .put("title", "Title")
+            .put("text", "text")
+            .put("tags", new String[]{"tag1", "tag2"})
+            .put("image", new JSONObject().put("name", "sc.png").put("size", 48_211))
+            .put("userId", "9b1d7c52-0f3e-4a8b-b6de-51c0d6f1a2e4")
+            .toString();
+    private final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    private final JsonFields.Values values = POST_FIELDS.newValues();
+
+    @Benchmark
+    @Warmup(iterations = 5, time = 3)
+    public void jsonPathPerField(Blackhole blackhole) {
+        String json = new String(bytes, StandardCharsets.UTF_8);
+        blackhole.consume(JsonPath.from(json).getString("id"));
+        blackhole.consume(JsonPath.from(json).getString("title"));
+        blackhole.consume(JsonPath.from(json).getString("text"));
+    }
+
+    @Benchmark
+    @Warmup(iterations = 5, time = 3)
+    public void jsonPathOnce(Blackhole blackhole) {
+        JsonPath path = JsonPath.from(new String(bytes, StandardCharsets.UTF_8));
+        blackhole.consume(path.getString("id"));
+        blackhole.consume(path.getString("title"));
+        blackhole.consume(path.getString("text"));
+    }
+
+    @Benchmark
+    public void jsonObject(Blackhole blackhole) {
+        JSONObject post = new JSONObject(new String(bytes, StandardCharsets.UTF_8));
+        blackhole.consume(post.getString("id"));
+        blackhole.consume(post.getString("title"));
+        blackhole.consume(post.getString("text"));
+    }
+
+    @Benchmark
+    public void jsonFields(Blackhole blackhole) {
+        POST_FIELDS.read(bytes, values);
+        blackhole.consume(values.get("id"));
+        blackhole.consume(values.get("title"));
+        blackhole.consume(values.get("text"));
+    }
+}
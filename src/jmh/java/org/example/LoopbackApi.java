@@ -0,0 +1,63 @@
+package org.example;
+
+import io.restassured.response.Response;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+
+/**
+ * {@link NewsApiStub} на loopback для бенчмарков: один на форк JVM, поэтому цифры
+ * не зависят от сети и сравнимы между коммитами. Поднимается до первого обращения
+ * к {@link ApiSpecs}, чтобы базовая спецификация взяла адрес заглушки.
+ * Пост для бенчмарков создаётся прямо на заглушке, без {@link FixturePool} и {@link UserPool}:
+ * бенчмарк не трогает общие пулы тестов и users/pool.json.
+ */
+@State(Scope.Benchmark)
+public class LoopbackApi {
+
+    public TestData testData;
+    public String postId;
+
+    private NewsApiStub stub;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        stub = new NewsApiStub(0).start();
+        stub.registerUser(TestContext.DEFAULT_EMAIL, TestContext.DEFAULT_PASSWORD);
+        System.setProperty(Endpoint.BASE_URL_PROPERTY, stub.baseUrl());
+        testData = new TestData();
+        testData.testUserEmail = TestContext.DEFAULT_EMAIL;
+        testData.testUserPassword = TestContext.DEFAULT_PASSWORD;
+        TokenProvider.shared().fill(testData);
+        postId = createPost();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        try {
+            ApiSpecs.authorized(testData, Endpoint.DELETE_POST, postId)
+                    .when()
+                    .delete();
+        } finally {
+            stub.close();
+        }
+    }
+
+    private String createPost() {
+        Response response = ApiSpecs.authorized(testData, Endpoint.CREATE_POST)
+                .multiPart("title", "Title")
+                .multiPart("text", "text")
+                .multiPart(UploadFixtures.image("sc.png"))
+                .multiPart("tags", "tag1")
+                .when()
+                .post();
+        if (response.statusCode() != 201) {
+            throw new IllegalStateException("Cannot create benchmark post: " + response.statusCode() + " " + response.asString());
+        }
+        return JsonFields.of("id").read(response).get("id");
+    }
+}
@@ -0,0 +1,108 @@
+package org.example;
+
+import io.restassured.response.Response;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.HttpMultipartMode;
+import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multipart с sc.png: кодирование тела тем же httpmime, что использует RestAssured
+ * (файл с диска против байтов из памяти), и полный PATCH поста с картинкой до заглушки.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MultipartBenchmark {
+
+    private static final ContentType PNG = ContentType.create(UploadFixtures.MIME_TYPE);
+
+    private byte[] image;
+    private File file;
+
+    // Байты — те же, что UploadFixtures кэширует для тестов; файл — их копия во временном каталоге,
+    // чтобы бенчмарк не зависел от рабочего каталога и раскладки ресурсов
+    @Setup
+    public void load() throws IOException {
+        image = (byte[]) UploadFixtures.image("sc.png").getContent();
+        Path copy = Files.createTempFile("sc", ".png");
+        Files.write(copy, image);
+        file = copy.toFile();
+    }
+
+    @TearDown
+    public void delete() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Benchmark
+    public long encodeFromFile() throws IOException {
+        return encode(form().addBinaryBody(UploadFixtures.CONTROL_NAME, file, PNG, "sc.png"));
+    }
+
+    @Benchmark
+    public long encodeFromMemory() throws IOException {
+        return encode(form().addBinaryBody(UploadFixtures.CONTROL_NAME, image, PNG, "sc.png"));
+    }
+
+    @Benchmark
+    @Warmup(iterations = 5, time = 3)
+    public int updatePostWithImage(LoopbackApi api) {
+        Response response = ApiSpecs.authorized(api.testData, Endpoint.UPDATE_POST, api.postId)
+                .multiPart("title", "Title")
+                .multiPart("text", "text")
+                .multiPart(UploadFixtures.image("sc.png"))
+                .when()
+                .patch();
+        return response.statusCode();
+    }
+
+    private static MultipartEntityBuilder form() {
+        return MultipartEntityBuilder.create()
+                .setMode(HttpMultipartMode.BROWSER_COMPATIBLE)
+                .addTextBody("title", "Title")
+                .addTextBody("text", "text")
+                .addTextBody("tags", "tag1")
+                .addTextBody("tags", "tag2");
+    }
+
+    private static long encode(MultipartEntityBuilder builder) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        builder.build().writeTo(out);
+        return out.count;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
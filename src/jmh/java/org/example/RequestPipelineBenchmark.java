@@ -0,0 +1,59 @@
+package org.example;
+
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость построения RestAssured-спецификации без отправки и полный круг запроса
+ * через общий клиент {@link ApiSpecs} до заглушки на loopback. Круговым запросам нужен
+ * длинный прогрев: RestAssured выходит на плато только через десятки секунд работы Groovy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestPipelineBenchmark {
+
+    @Benchmark
+    public RequestSpecification buildSharedSpec(LoopbackApi api) {
+        return ApiSpecs.authorized(api.testData, Endpoint.WHO_AM_I);
+    }
+
+    @Benchmark
+    public RequestSpecification buildAdHocSpec(LoopbackApi api) {
+        return RestAssured.given()
+                .baseUri(Endpoint.baseUrl())
+                .basePath("/auth/whoami")
+                .header("Authorization", "Bearer " + api.testData.accessToken);
+    }
+
+    @Benchmark
+    @Warmup(iterations = 5, time = 3)
+    public int whoAmI(LoopbackApi api) {
+        Response response = ApiSpecs.authorized(api.testData, Endpoint.WHO_AM_I)
+                .when()
+                .get();
+        return response.statusCode();
+    }
+
+    @Benchmark
+    @Warmup(iterations = 5, time = 3)
+    public int login(LoopbackApi api) {
+        Response response = ApiSpecs.api(Endpoint.LOGIN)
+                .body("{\"email\":\"" + api.testData.testUserEmail + "\",\"password\":\"" + api.testData.testUserPassword + "\"}")
+                .when()
+                .post();
+        return response.statusCode();
+    }
+}
@@ -0,0 +1,150 @@
+package org.example;
+
+/**
+ * Каталог эндпоинтов news API: HTTP-метод, шаблон пути и ожидаемый тип тела запроса.
+ * Шаблон разбирается один раз при загрузке класса; {@link #expand} склеивает готовые
+ * куски с параметрами без регулярных выражений, {@link #match} находит эндпоинт
+ * по методу и конкретному пути. Значения неизменяемы и общие для всех потоков.
+ */
+public enum Endpoint {
+    SIGNUP("POST", "/auth/signup", Endpoint.JSON), //регистрация
+    LOGIN("POST", "/auth/login", Endpoint.JSON), //авторизация
+    WHO_AM_I("GET", "/auth/whoami", null), //проверить токен и получить пользователя
+    USER_INFO("GET", "/users/{id}", null), //получить информацию о пользователе
+    UPDATE_USER("PATCH", "/users/{id}", Endpoint.MULTIPART), //изменить данные пользователя
+    USER_LIST("GET", "/users", null), //получить список пользователей
+    CREATE_POST("POST", "/posts", Endpoint.MULTIPART), //создать новость
+    GET_POSTS("GET", "/posts", null), //получить список новостей
+    UPDATE_POST("PATCH", "/posts/{id}", Endpoint.MULTIPART), //обновить определенную новость
+    DELETE_POST("DELETE", "/posts/{id}", null), //удалить новость
+    CREATE_COMMENT("POST", "/comments", Endpoint.JSON), //добавить комментарий
+    UPDATE_COMMENT("PATCH", "/comments/{id}", Endpoint.JSON), //изменить комментарий
+    DELETE_COMMENT("DELETE", "/comments/{id}", null); //удалить комментарий
+
+    public static final String BASE_URL_PROPERTY = "api.baseUrl"; //переопределение адреса API, например локальной заглушкой
+    public static final String JSON = "application/json";
+    public static final String MULTIPART = "multipart/form-data";
+
+    private static final String DEFAULT_BASE_URL = "https://api.news.academy.dunice.net";
+    private static final Endpoint[] VALUES = values();
+
+    private final String method;
+    private final String template;
+    private final String contentType;
+    // segments[i] == null — на этом месте параметр; literals — текст между параметрами
+    private final String[] segments;
+    private final String[] literals;
+
+    Endpoint(String method, String template, String contentType) {
+        this.method = method;
+        this.template = template;
+        this.contentType = contentType;
+        this.segments = template.substring(1).split("/");
+        int parameters = 0;
+        for (int i = 0; i < segments.length; i++) {
+            if (segments[i].startsWith("{")) {
+                segments[i] = null;
+                parameters++;
+            }
+        }
+        this.literals = new String[parameters + 1];
+        StringBuilder literal = new StringBuilder();
+        int parameter = 0;
+        for (String segment : segments) {
+            literal.append('/');
+            if (segment == null) {
+                literals[parameter++] = literal.toString();
+                literal.setLength(0);
+            } else {
+                literal.append(segment);
+            }
+        }
+        literals[parameter] = literal.toString();
+    }
+
+    /**
+     * Адрес API из свойства api.baseUrl на момент вызова. Общая спецификация тестов (ApiSpecs) запоминает его
+     * при первом запросе, поэтому заглушка или прокси со сбоями должны подменить свойство до него.
+     */
+    public static String baseUrl() {
+        return System.getProperty(BASE_URL_PROPERTY, DEFAULT_BASE_URL);
+    }
+
+    public String method() {
+        return method;
+    }
+
+    public String template() {
+        return template;
+    }
+
+    /**
+     * Тип тела, который ждёт сервер, или null, если тела нет.
+     */
+    public String contentType() {
+        return contentType;
+    }
+
+    public String expand(String... parameters) {
+        if (parameters.length != literals.length - 1) {
+            throw new IllegalArgumentException(this + " " + template + " expects " + (literals.length - 1)
+                    + " path parameters, got " + parameters.length);
+        }
+        if (parameters.length == 0) {
+            return template;
+        }
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        for (String parameter : parameters) {
+            length += parameter.length();
+        }
+        StringBuilder path = new StringBuilder(length);
+        for (int i = 0; i < parameters.length; i++) {
+            path.append(literals[i]).append(parameters[i]);
+        }
+        return path.append(literals[parameters.length]).toString();
+    }
+
+    /**
+     * Эндпоинт для метода и конкретного пути (/posts/42 -> UPDATE_POST для PATCH)
+     * или null. Строка запроса и завершающий слэш игнорируются.
+     */
+    public static Endpoint match(String method, String path) {
+        for (Endpoint endpoint : VALUES) {
+            if (endpoint.method.equals(method) && endpoint.matches(path)) {
+                return endpoint;
+            }
+        }
+        return null;
+    }
+
+    private boolean matches(String path) {
+        int end = path.indexOf('?');
+        if (end < 0) {
+            end = path.length();
+        }
+        if (end > 1 && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        int position = 0;
+        for (String segment : segments) {
+            if (position >= end || path.charAt(position) != '/') {
+                return false;
+            }
+            int start = position + 1;
+            int next = path.indexOf('/', start);
+            int segmentEnd = next < 0 || next > end ? end : next;
+            if (segment == null) {
+                if (segmentEnd == start) {
+                    return false;
+                }
+            } else if (segmentEnd - start != segment.length() || !path.startsWith(segment, start)) {
+                return false;
+            }
+            position = segmentEnd;
+        }
+        return position == end;
+    }
+}
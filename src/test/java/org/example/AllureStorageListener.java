@@ -0,0 +1,55 @@
+package org.example;
+
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import org.testng.IExecutionListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * Пишет результаты Allure через {@link SegmentedResultsWriter}: каждый прогон — несколько сегментов
+ * в своём каталоге, старые прогоны удаляются, и allure-results не растёт от прогона к прогону.
+ * -Dallure.segments=false — прежняя запись файлом на каждый результат в allure.results.directory.
+ * Lifecycle подменяется в конструкторе: AllureTestNg берёт его при создании, а этот listener
+ * из test-classes загружается через ServiceLoader раньше слушателя из jar allure-testng.
+ * <p>
+ * Настройки: -Dallure.segments.dir (target/allure-segments), -Dallure.segments.keep (5 прогонов),
+ * -Dallure.segments.segmentMb (16), -Dallure.segments.export=true — в конце развернуть прогон
+ * в allure.results.directory для allure serve. Каталог прогона — последний run-* в allure.segments.dir.
+ */
+public class AllureStorageListener implements IExecutionListener {
+
+    static final String DEFAULT_ROOT = "target/allure-segments";
+
+    private final SegmentedResultsWriter writer;
+
+    public AllureStorageListener() {
+        if (!Boolean.parseBoolean(System.getProperty("allure.segments", "true"))) {
+            writer = null;
+            return;
+        }
+        writer = new SegmentedResultsWriter(
+                Path.of(System.getProperty("allure.segments.dir", DEFAULT_ROOT)),
+                Integer.getInteger("allure.segments.keep", 5),
+                Integer.getInteger("allure.segments.segmentMb", 16) * 1024L * 1024L);
+        Allure.setLifecycle(new AllureLifecycle(writer));
+    }
+
+    @Override
+    public void onExecutionFinish() {
+        if (writer == null) {
+            return;
+        }
+        writer.close();
+        if (Boolean.getBoolean("allure.segments.export")) {
+            Path target = Path.of(System.getProperty("allure.results.directory", "allure-results"));
+            try {
+                SegmentedResultsWriter.export(writer.run(), target);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot export " + writer.run() + " to " + target, e);
+            }
+        }
+    }
+}
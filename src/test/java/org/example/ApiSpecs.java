@@ -0,0 +1,169 @@
+package org.example;
+
+import io.restassured.RestAssured;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import io.restassured.specification.RequestSpecification;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.params.CoreConnectionPNames;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.ExecutionContext;
+
+import javax.net.ssl.SSLContext;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Единая точка построения запросов к API. Все спецификации разделяют один HTTP-клиент
+ * с пулом keep-alive соединений и общим SSLContext, поэтому TCP/TLS-рукопожатие
+ * платится один раз на соединение, а TLS-сессии переиспользуются.
+ * <p>
+ * Настройки: -Dhttp.maxPerRoute, -Dhttp.maxTotal, -Dhttp.connectTimeout и -Dhttp.readTimeout (мс),
+ * повторы идемпотентных запросов — -Dhttp.retry.*, см. {@link RetryPolicy}.
+ */
+@SuppressWarnings("deprecation") // RestAssured 4.x принимает только AbstractHttpClient из API HttpClient 4.0
+public final class ApiSpecs {
+
+    private static final int MAX_PER_ROUTE = Integer.getInteger("http.maxPerRoute", 20);
+    private static final int MAX_TOTAL = Integer.getInteger("http.maxTotal", 100);
+    private static final int CONNECT_TIMEOUT_MILLIS = Integer.getInteger("http.connectTimeout", 5_000);
+    private static final int READ_TIMEOUT_MILLIS = Integer.getInteger("http.readTimeout", 30_000);
+    private static final long IDLE_TTL_SECONDS = 60;
+    private static final RetryFilter RETRIES = new RetryFilter(RetryPolicy.fromSystemProperties());
+
+    private static final PoolingClientConnectionManager CONNECTIONS = connectionManager();
+    private static final RestAssuredConfig CONFIG = RestAssuredConfig.config().httpClient(
+            HttpClientConfig.httpClientConfig()
+                    .reuseHttpClientInstance()
+                    .httpClientFactory(ApiSpecs::httpClient)
+                    .setParam(CoreConnectionPNames.CONNECTION_TIMEOUT, CONNECT_TIMEOUT_MILLIS)
+                    .setParam(CoreConnectionPNames.SO_TIMEOUT, READ_TIMEOUT_MILLIS)
+                    .setParam(ClientPNames.CONN_MANAGER_TIMEOUT, (long) CONNECT_TIMEOUT_MILLIS));
+
+    private ApiSpecs() {
+    }
+
+    /**
+     * Запрос без авторизации.
+     */
+    public static RequestSpecification api() {
+        return RestAssured.given().spec(Base.SPEC);
+    }
+
+    /**
+     * Запрос без авторизации к эндпоинту: путь с подставленными параметрами и тип тела из каталога.
+     */
+    public static RequestSpecification api(Endpoint endpoint, String... pathParameters) {
+        return target(api(), endpoint, pathParameters);
+    }
+
+    /**
+     * Запрос с токеном из TestData; при 401 на закэшированный токен повторяется с новым.
+     */
+    public static RequestSpecification authorized(TestData testData) {
+        return api()
+                .header("Authorization", "Bearer " + testData.accessToken)
+                .filter(TokenProvider.shared().refreshOnUnauthorized());
+    }
+
+    public static RequestSpecification authorized(TestData testData, Endpoint endpoint, String... pathParameters) {
+        return target(authorized(testData), endpoint, pathParameters);
+    }
+
+    /**
+     * Поднимает лимиты пула до числа одновременных запросов. Нужно для нагрузки на виртуальных
+     * потоках: HttpClient 4 ждёт свободное соединение под монитором, и ожидающий поток держит carrier.
+     */
+    public static void ensureCapacity(int concurrentRequests) {
+        synchronized (CONNECTIONS) {
+            if (CONNECTIONS.getDefaultMaxPerRoute() < concurrentRequests) {
+                CONNECTIONS.setDefaultMaxPerRoute(concurrentRequests);
+            }
+            if (CONNECTIONS.getMaxTotal() < concurrentRequests) {
+                CONNECTIONS.setMaxTotal(concurrentRequests);
+            }
+        }
+    }
+
+    /**
+     * Фильтр повторов, общий для всех спецификаций; по умолчанию с {@link RetryPolicy#NONE}.
+     */
+    public static RetryFilter retries() {
+        return RETRIES;
+    }
+
+    public static PoolStats connectionStats() {
+        return CONNECTIONS.getTotalStats();
+    }
+
+    // Multipart-заголовок с boundary RestAssured ставит сам по частям запроса, явно задаём только JSON
+    private static RequestSpecification target(RequestSpecification request, Endpoint endpoint, String... pathParameters) {
+        request.basePath(endpoint.expand(pathParameters));
+        if (Endpoint.JSON.equals(endpoint.contentType())) {
+            request.contentType(Endpoint.JSON);
+        }
+        return request;
+    }
+
+    // RestAssured читает тело лениво, и пока оно не прочитано, соединение не возвращается в пул.
+    // Тесты, проверяющие только статус, иначе держали бы соединение до сборки мусора.
+    private static Response readBody(FilterableRequestSpecification request,
+                                     FilterableResponseSpecification response,
+                                     FilterContext context) {
+        Response result = context.next(request, response);
+        result.asByteArray();
+        return result;
+    }
+
+    // Сам HttpClient повторяет только запрос, не ушедший в сеть (протухшее keep-alive соединение).
+    // Штатный обработчик молча переотправлял бы GET и DELETE после обрыва — повторы отданы RetryPolicy.
+    private static DefaultHttpClient httpClient() {
+        DefaultHttpClient client = new DefaultHttpClient(CONNECTIONS);
+        client.setHttpRequestRetryHandler((exception, executionCount, context) ->
+                executionCount <= 1 && !Boolean.TRUE.equals(context.getAttribute(ExecutionContext.HTTP_REQ_SENT)));
+        return client;
+    }
+
+    private static PoolingClientConnectionManager connectionManager() {
+        SSLContext tls;
+        try {
+            tls = SSLContext.getInstance("TLS");
+            tls.init(null, null, null);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialise TLS context", e);
+        }
+        // Один SSLContext на весь процесс — один кэш клиентских TLS-сессий для resumption
+        tls.getClientSessionContext().setSessionCacheSize(1_000);
+        tls.getClientSessionContext().setSessionTimeout((int) TimeUnit.HOURS.toSeconds(1));
+
+        SchemeRegistry schemes = new SchemeRegistry();
+        schemes.register(new Scheme("http", 80, PlainSocketFactory.getSocketFactory()));
+        schemes.register(new Scheme("https", 443, new SSLSocketFactory(tls)));
+
+        PoolingClientConnectionManager manager = new PoolingClientConnectionManager(schemes, IDLE_TTL_SECONDS, TimeUnit.SECONDS);
+        manager.setDefaultMaxPerRoute(MAX_PER_ROUTE);
+        manager.setMaxTotal(MAX_TOTAL);
+        return manager;
+    }
+
+    // baseUrl читается при первом запросе, когда LocalStubListener уже мог подменить api.baseUrl
+    private static final class Base {
+        private static final RequestSpecification SPEC = new RequestSpecBuilder()
+                .setBaseUri(Endpoint.baseUrl())
+                .setConfig(CONFIG)
+                .addFilter(ApiSpecs::readBody)
+                .addFilter(RETRIES)
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package org.example;
+
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Асинхронная отправка запросов: спецификация собирается в потоке теста, а выполняется
+ * на виртуальном потоке и возвращается как {@link CompletableFuture}. Одновременно в полёте
+ * не больше maxInFlight запросов; следующий вызов ждёт освобождения места в потоке
+ * вызывающего (backpressure), поэтому из колбэков самого AsyncApi новые запросы слать нельзя.
+ * <p>
+ * Общий экземпляр: {@link #shared()}, лимит -Dasync.maxInFlight (8).
+ */
+public final class AsyncApi implements AutoCloseable {
+
+    private static final AsyncApi SHARED = new AsyncApi(Integer.getInteger("async.maxInFlight", 8));
+
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public AsyncApi(int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        // Ожидание соединения в HttpClient 4 держит carrier виртуального потока — пул не должен быть уже лимита
+        ApiSpecs.ensureCapacity(maxInFlight);
+    }
+
+    public static AsyncApi shared() {
+        return SHARED;
+    }
+
+    public CompletableFuture<Response> get(RequestSpecification request) {
+        return submit(() -> request.when().get());
+    }
+
+    public CompletableFuture<Response> post(RequestSpecification request) {
+        return submit(() -> request.when().post());
+    }
+
+    public CompletableFuture<Response> patch(RequestSpecification request) {
+        return submit(() -> request.when().patch());
+    }
+
+    public CompletableFuture<Response> delete(RequestSpecification request) {
+        return submit(() -> request.when().delete());
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> call) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            return CompletableFuture.supplyAsync(call, executor)
+                    .whenComplete((result, error) -> inFlight.release());
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    public int inFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,46 @@
+package org.example;
+
+import io.qameta.allure.Description;
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Epic("Инфраструктура тестов")
+public class AsyncApiTests {
+
+    @Test
+    @Feature("Асинхронные запросы")
+    @Description("Одновременно выполняется не больше maxInFlight вызовов, остальные ждут места.")
+    public void givenMoreCallsThanLimit_whenSubmitted_thenInFlightBounded() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<CompletableFuture<Integer>> calls = new ArrayList<>();
+
+        try (AsyncApi async = new AsyncApi(3)) {
+            for (int i = 0; i < 20; i++) {
+                int call = i;
+                calls.add(async.submit(() -> {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    return call;
+                }));
+                Assert.assertTrue(async.inFlight() <= 3, "in flight: " + async.inFlight());
+            }
+            CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).join();
+        }
+
+        Assert.assertTrue(peak.get() <= 3, "peak concurrency: " + peak.get());
+        Assert.assertEquals(calls.get(19).join(), Integer.valueOf(19));
+    }
+}
@@ -5,49 +5,49 @@ import io.restassured.response.Response;
 import io.qameta.allure.Description;
 import io.qameta.allure.Epic;
 import io.qameta.allure.Feature;
-import io.qameta.allure.Step;
-import io.restassured.RestAssured;
 import org.json.JSONObject;
-import org.testng.Assert;
 import org.testng.AssertJUnit;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import org.testng.asserts.SoftAssert;
 
-import java.io.File;
-
 @Epic("Управление пользователями и новостями")
 public class AuthTests {
 
-    private EndPoints endPoints;
-    private TestData testData;
+    private static final JsonFields LOGIN_FIELDS = JsonFields.of("accessToken", "user.id");
+    private static final JsonFields USER_FIELDS = JsonFields.of("id", "email", "firstName");
+    private static final JsonFields POST_FIELDS = JsonFields.of("id", "title", "text");
+    private static final JsonFields COMMENT_FIELDS = JsonFields.of("id", "text");
 
     @BeforeMethod
     public void setup() {
-        endPoints = new EndPoints();
-        testData = new TestData();
-        testData.testUserEmail = "5test.user@example.com";
-        testData.testUserPassword = "password123";
-        loginUser();
+        TestContext.start();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() {
+        TestContext.clear();
     }
 
     @Test
+    @PerformanceBudget(iterations = 50, warmup = 5, percentile = 95, millis = 300)
     @Feature("Авторизация пользователя")
-    @Description("Тест успешной авторизации пользователя с валидными данными.")
+    @Description("Тест успешной авторизации пользователя с валидными данными; p95 логина не больше 300 мс.")
     public void givenValidCredentials_whenLogin_thenSuccess() {
+        TestData testData = TestContext.current();
         SoftAssert softAssert = new SoftAssert();
 
-        Response response = RestAssured.given()
-                .baseUri(endPoints.baseUrl)
-                .basePath(endPoints.login)
-                .header("Content-Type", "application/json")
+        Response response = ApiSpecs.api(Endpoint.LOGIN)
                 .body("{\"email\":\"" + testData.testUserEmail + "\",\"password\":\"" + testData.testUserPassword + "\"}")
                 .when()
                 .post();
 
         softAssert.assertEquals(response.statusCode(), 200, "Status code 200");
-        softAssert.assertNotNull(response.jsonPath().getString("accessToken"), "Access Token is null");
-        softAssert.assertNotNull(response.jsonPath().getString("user.id"), "User ID is null");
+        LOGIN_FIELDS.expect()
+                .notNull("accessToken", "Access Token is null")
+                .notNull("user.id", "User ID is null")
+                .verify(response, softAssert);
 
         softAssert.assertAll();
     }
@@ -56,18 +56,18 @@ public class AuthTests {
     @Feature("Получение информации о пользователе")
     @Description("Тест получения информации о пользователе с валидным токеном.")
     public void givenValidToken_whenGetUserInfo_thenUserInfoReturned() {
+        TestData testData = TestContext.current();
         SoftAssert softAssert = new SoftAssert();
 
-        Response response = RestAssured.given()
-                .baseUri(endPoints.baseUrl)
-                .basePath(endPoints.whoAmI)
-                .header("Authorization", "Bearer " + testData.accessToken)
+        Response response = ApiSpecs.authorized(testData, Endpoint.WHO_AM_I)
                 .when()
                 .get();
 
         softAssert.assertEquals(response.statusCode(), 200, "Status code 200");
-        softAssert.assertNotNull(response.jsonPath().getString("id"), "User ID is null");
-        softAssert.assertNotNull(response.jsonPath().getString("email"), "User email is null");
+        USER_FIELDS.expect()
+                .notNull("id", "User ID is null")
+                .notNull("email", "User email is null")
+                .verify(response, softAssert);
 
         softAssert.assertAll();
     }
@@ -76,49 +76,74 @@ public class AuthTests {
     @Feature("Изменение пользователя")
     @Description("Тест изменения информации о пользователе с валидным токеном и данными.")
     public void givenValidData_whenUpdateUserInfo_thenUserInfoUpdated() {
+        TestData testData = TestContext.current();
         SoftAssert softAssert = new SoftAssert();
         String Name = "UpdatedFirstName";
 
-        Response response = RestAssured.given()
-                .baseUri(endPoints.baseUrl)
-                .basePath(endPoints.updateUser.replace("{id}", testData.userId))
-                .header("Authorization", "Bearer " + testData.accessToken)
+        Response response = ApiSpecs.authorized(testData, Endpoint.UPDATE_USER, testData.userId)
                 .multiPart("firstName", Name)
                 .when()
                 .patch();
 
         softAssert.assertEquals(response.statusCode(), 200, "Status code 200");
-        softAssert.assertEquals(response.jsonPath().getString("firstName"), Name, "First name did not update correctly");
+        USER_FIELDS.expect()
+                .equal("firstName", Name, "First name did not update correctly")
+                .verify(response, softAssert);
 
         softAssert.assertAll();
     }
 
     @Test
+    @PerformanceBudget(iterations = 5, warmup = 1, percentile = 100, millis = 1_000)
     @Feature("Создание поста")
-    @Description("Тест создания нового поста с изображением и тегами.")
+    @Description("Тест создания нового поста с изображением и тегами; каждое создание не дольше секунды.")
     public void givenValidData_whenCreatePost_thenPostCreated() {
+        TestData testData = TestContext.current();
         String title = "Title";
         String text = "text";
-        String filePath = "src/main/resources/sc.png";
         String[] tags = {"tag1", "tag2"};
-        File file = new File(filePath);
-        RequestSpecification request = RestAssured.given()
-                .baseUri(endPoints.baseUrl)
-                .basePath(endPoints.createPost)
-                .header("Authorization", "Bearer " + testData.accessToken)
+        RequestSpecification request = ApiSpecs.authorized(testData, Endpoint.CREATE_POST)
                 .multiPart("title", title)
                 .multiPart("text", text)
-                .multiPart("file", file, "image/png");
+                .multiPart(UploadFixtures.image("sc.png"));
         for (String tag : tags) {
             request.multiPart("tags", tag);
         }
         Response response = request.when().post();
         SoftAssert softAssert = new SoftAssert();
         softAssert.assertEquals(response.statusCode(), 201, "Status code 201");
-        testData.postId = response.jsonPath().getString("id");
-        softAssert.assertNotNull(testData.postId, "Post ID is null");
-        softAssert.assertEquals(response.jsonPath().getString("title"), title, "Title mismatch");
-        softAssert.assertEquals(response.jsonPath().getString("text"), text, "Text mismatch");
+        testData.postId = POST_FIELDS.expect()
+                .notNull("id", "Post ID is null")
+                .equal("title", title, "Title mismatch")
+                .equal("text", text, "Text mismatch")
+                .verify(response, softAssert)
+                .get("id");
+        FixturePool.shared().adoptPost(testData.postId);
+
+        softAssert.assertAll();
+    }
+
+    @Test
+    @Feature("Создание поста")
+    @Description("Тест создания поста с изображением, передаваемым потоком без буфера в памяти; размер -Dupload.largeBytes.")
+    public void givenLargeImage_whenCreatePost_thenPostCreated() {
+        TestData testData = TestContext.current();
+        // По умолчанию немного: полные 5 МБ уходят только с -Pperf, а не в каждом прогоне против API
+        long size = Long.getLong("upload.largeBytes", 64L * 1024);
+        Response response = ApiSpecs.authorized(testData, Endpoint.CREATE_POST)
+                .multiPart("title", "Large")
+                .multiPart("text", "large upload")
+                .multiPart("tags", "large")
+                .multiPart(UploadFixtures.generated("large.png", size))
+                .when()
+                .post();
+        SoftAssert softAssert = new SoftAssert();
+        softAssert.assertEquals(response.statusCode(), 201, "Status code 201");
+        testData.postId = POST_FIELDS.expect()
+                .notNull("id", "Post ID is null")
+                .verify(response, softAssert)
+                .get("id");
+        FixturePool.shared().adoptPost(testData.postId);
 
         softAssert.assertAll();
     }
@@ -127,27 +152,28 @@ public class AuthTests {
     @Feature("Обновление поста")
     @Description("Тест обновления существующего поста с новыми данными.")
     public void givenValidData_whenUpdatePost_thenPostUpdated() {
-        givenValidData_whenCreatePost_thenPostCreated();
+        TestData testData = TestContext.current();
         SoftAssert softAssert = new SoftAssert();
         String Title = "Updated Test Post Title";
         String Text = "This is an updated test post text";
-        String FilePath = "src/main/resources/s.png";
         String[] Tags = {"upTag1", "upTag2"};
-        File updatedFile = new File(FilePath);
-        RequestSpecification request = RestAssured.given()
-                .baseUri(endPoints.baseUrl)
-                .basePath(endPoints.updatePost.replace("{id}", testData.postId))
-                .header("Authorization", "Bearer " + testData.accessToken)
-                .multiPart("title", Title)
-                .multiPart("text", Text)
-                .multiPart("file", updatedFile, "image/png");
-        for (String tag : Tags) {
-            request.multiPart("tags", tag);
+        Response response;
+        try (FixturePool.Fixture post = FixturePool.shared().borrowPost()) {
+            testData.postId = post.id();
+            RequestSpecification request = ApiSpecs.authorized(testData, Endpoint.UPDATE_POST, testData.postId)
+                    .multiPart("title", Title)
+                    .multiPart("text", Text)
+                    .multiPart(UploadFixtures.image("s.png"));
+            for (String tag : Tags) {
+                request.multiPart("tags", tag);
+            }
+            response = request.when().patch();
         }
-        Response response = request.when().patch();
         softAssert.assertEquals(response.statusCode(), 200, "Status code 200 ");
-        softAssert.assertEquals(response.jsonPath().getString("title"), Title, "Updated title mismatch");
-        softAssert.assertEquals(response.jsonPath().getString("text"), Text, "Updated text mismatch");
+        POST_FIELDS.expect()
+                .equal("title", Title, "Updated title mismatch")
+                .equal("text", Text, "Updated text mismatch")
+                .verify(response, softAssert);
 
         softAssert.assertAll();
     }
@@ -155,13 +181,11 @@ public class AuthTests {
     @Feature("Удаление поста")
     @Description("Тест удаления существующего поста.")
     public void givenValidPostId_whenDeletePost_thenPostDeleted() {
-        givenValidData_whenCreatePost_thenPostCreated();
+        TestData testData = TestContext.current();
+        testData.postId = FixturePool.shared().takePost();
         SoftAssert softAssert = new SoftAssert();
 
-        Response response = RestAssured.given()
-                .baseUri(endPoints.baseUrl)
-                .basePath(endPoints.deletePost.replace("{id}", testData.postId))
-                .header("Authorization", "Bearer " + testData.accessToken)
+        Response response = ApiSpecs.authorized(testData, Endpoint.DELETE_POST, testData.postId)
                 .when()
                 .delete();
 
@@ -173,27 +197,30 @@ public class AuthTests {
     @Feature("Создание комментария")
     @Description("Тест создания комментария к посту.")
     public void givenValidData_whenCreateComment_thenCommentCreated() {
-        givenValidData_whenCreatePost_thenPostCreated();
+        TestData testData = TestContext.current();
         SoftAssert softAssert = new SoftAssert();
         String comment = "comment";
 
-        JSONObject requestBody = new JSONObject();
-        requestBody.put("postId", testData.postId);
-        requestBody.put("text", comment);
-
-        Response response = RestAssured.given()
-                .baseUri(endPoints.baseUrl)
-                .basePath(endPoints.comment)
-                .header("Content-Type", "application/json")
-                .header("Authorization", "Bearer " + testData.accessToken)
-                .body(requestBody.toString())
-                .when()
-                .post();
+        Response response;
+        try (FixturePool.Fixture post = FixturePool.shared().borrowPost()) {
+            testData.postId = post.id();
+            JSONObject requestBody = new JSONObject();
+            requestBody.put("postId", testData.postId);
+            requestBody.put("text", comment);
+
+            response = ApiSpecs.authorized(testData, Endpoint.CREATE_COMMENT)
+                    .body(requestBody.toString())
+                    .when()
+                    .post();
+        }
 
         softAssert.assertEquals(response.statusCode(), 201, "Status code 201");
-        testData.commentId = response.jsonPath().getString("id");
-        softAssert.assertNotNull(testData.commentId, "Comment ID is null");
-        softAssert.assertEquals(response.jsonPath().getString("text"), comment, "Comment text mismatch");
+        testData.commentId = COMMENT_FIELDS.expect()
+                .notNull("id", "Comment ID is null")
+                .equal("text", comment, "Comment text mismatch")
+                .verify(response, softAssert)
+                .get("id");
+        FixturePool.shared().adoptComment(testData.commentId);
 
         softAssert.assertAll();
     }
@@ -202,21 +229,23 @@ public class AuthTests {
     @Feature("Обновление комментария")
     @Description("Тест обновления комментария к посту.")
     public void givenValidData_whenUpdateComment_thenCommentUpdated() {
-        givenValidData_whenCreateComment_thenCommentCreated();
+        TestData testData = TestContext.current();
         SoftAssert softAssert = new SoftAssert();
         String updated = "Updated";
 
-        Response response = RestAssured.given()
-                .baseUri(endPoints.baseUrl)
-                .basePath(endPoints.updateComment.replace("{id}", testData.commentId))
-                .header("Content-Type", "application/json")
-                .header("Authorization", "Bearer " + testData.accessToken)
-                .body("{\"text\":\"" + updated + "\"}")
-                .when()
-                .patch();
+        Response response;
+        try (FixturePool.Fixture comment = FixturePool.shared().borrowComment()) {
+            testData.commentId = comment.id();
+            response = ApiSpecs.authorized(testData, Endpoint.UPDATE_COMMENT, testData.commentId)
+                    .body("{\"text\":\"" + updated + "\"}")
+                    .when()
+                    .patch();
+        }
 
         softAssert.assertEquals(response.statusCode(), 200, "Status code 200");
-        softAssert.assertEquals(response.jsonPath().getString("text"), updated, "Updated comment text mismatch");
+        COMMENT_FIELDS.expect()
+                .equal("text", updated, "Updated comment text mismatch")
+                .verify(response, softAssert);
 
         softAssert.assertAll();
     }
@@ -225,32 +254,15 @@ public class AuthTests {
     @Feature("Удаление комментария")
     @Description("Тест удаления комментария к посту.")
     public void givenValidCommentId_whenDeleteComment_thenCommentDeleted() {
-        givenValidData_whenCreateComment_thenCommentCreated();
+        TestData testData = TestContext.current();
+        testData.commentId = FixturePool.shared().takeComment();
         SoftAssert softAssert = new SoftAssert();
 
-        Response response = RestAssured.given()
-                .baseUri(endPoints.baseUrl)
-                .basePath(endPoints.deleteComment.replace("{id}", testData.commentId))
-                .header("Authorization", "Bearer " + testData.accessToken)
+        Response response = ApiSpecs.authorized(testData, Endpoint.DELETE_COMMENT, testData.commentId)
                 .when()
                 .delete();
 
         softAssert.assertEquals(response.statusCode(), 200, "Status code 200");
         softAssert.assertAll();
     }
-
-    @Step("Login user and obtain access token")
-    private void loginUser() {
-        Response response = RestAssured.given()
-                .baseUri(endPoints.baseUrl)
-                .basePath(endPoints.login)
-                .header("Content-Type", "application/json")
-                .body("{\"email\":\"" + testData.testUserEmail + "\",\"password\":\"" + testData.testUserPassword + "\"}")
-                .when()
-                .post();
-
-        Assert.assertEquals(response.statusCode(), 200, "User login failed");
-        testData.accessToken = response.jsonPath().getString("accessToken");
-        testData.userId = response.jsonPath().getString("user.id");
-    }
 }
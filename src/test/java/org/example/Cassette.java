@@ -0,0 +1,320 @@
+package org.example;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Записанные пары запрос/ответ для {@link CassetteFilter}.
+ * <p>
+ * Файл: магическое число, время записи, таблица двоичных частей multipart (каждая один раз, по SHA-256),
+ * затем взаимодействия: метод, путь, хэш запроса, краткое описание запроса со ссылками
+ * на части, статус, заголовки и тело ответа. Строки — длина и UTF-8.
+ * При записи части до {@link #write} лежат во временном файле, в памяти — только хэши и смещения.
+ * При воспроизведении файл отображается в память, индекс строится один раз при открытии,
+ * а тело ответа копируется из отображения только когда ответ отдаётся.
+ * {@link #clock()} — часы, остановленные на времени записи: по ним записанные токены не истекают.
+ */
+public final class Cassette {
+
+    private static final int MAGIC = 0x43415332; // "CAS2"
+    private static final int HASH_BYTES = 32;
+
+    private final Map<String, Blob> blobs = new LinkedHashMap<>();
+    // Части из UploadFixtures — один и тот же массив на все запросы, хэш считается один раз.
+    // У массивов equals по ссылке, а слабые ключи не держат массивы, которых больше никто не использует
+    private final Map<byte[], String> arrays = new WeakHashMap<>();
+    // Файлы по пути, размеру и времени изменения: тот же файл не читается повторно
+    private final Map<String, String> files = new HashMap<>();
+    private FileChannel spool;
+    private final List<Interaction> recorded = new ArrayList<>();
+    private final Map<Key, Replay> replays = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> requestsByPath = new ConcurrentHashMap<>();
+    private final Instant recordedAt;
+
+    private Cassette(Instant recordedAt) {
+        this.recordedAt = recordedAt;
+    }
+
+    public static Cassette recording() {
+        return recording(Instant.now());
+    }
+
+    static Cassette recording(Instant recordedAt) {
+        return new Cassette(recordedAt);
+    }
+
+    /**
+     * Открывает кассету для воспроизведения; содержимое остаётся в отображённом файле.
+     */
+    public static Cassette open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException(file + " is not a cassette or was recorded by an older version; record it again");
+        }
+        Cassette cassette = new Cassette(Instant.ofEpochMilli(buffer.getLong()));
+        int blobCount = buffer.getInt();
+        for (int i = 0; i < blobCount; i++) {
+            buffer.position(buffer.position() + HASH_BYTES);
+            int length = buffer.getInt();
+            buffer.position(buffer.position() + length);
+        }
+        int interactions = buffer.getInt();
+        for (int i = 0; i < interactions; i++) {
+            Key key = new Key(string(buffer), string(buffer), string(buffer));
+            String request = string(buffer);
+            int status = buffer.getInt();
+            Map<String, String> headers = new LinkedHashMap<>();
+            int headerCount = buffer.getInt();
+            for (int h = 0; h < headerCount; h++) {
+                headers.put(string(buffer), string(buffer));
+            }
+            int length = buffer.getInt();
+            ByteBuffer body = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            cassette.replays.computeIfAbsent(key, k -> new Replay()).responses.add(new Recorded(status, headers, body));
+            cassette.requestsByPath.computeIfAbsent(key.method() + " " + key.path(), k -> new ArrayList<>()).add(request);
+        }
+        return cassette;
+    }
+
+    /**
+     * Хэш содержимого двоичной части; сама часть сохраняется в таблицу кассеты один раз.
+     */
+    public synchronized String blob(byte[] content) {
+        String hash = arrays.get(content);
+        if (hash == null) {
+            hash = HexFormat.of().formatHex(sha256(content));
+            arrays.put(content, hash);
+            if (!blobs.containsKey(hash)) {
+                try {
+                    long offset = spool().size();
+                    write(ByteBuffer.wrap(content), offset);
+                    blobs.put(hash, new Blob(offset, content.length));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot spool multipart content", e);
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * То же для файла: читается потоком при первой встрече, дальше хэш берётся по пути, размеру и времени изменения.
+     */
+    public synchronized String blob(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            String identity = file.toAbsolutePath() + "|" + attributes.size() + "|" + attributes.lastModifiedTime().toMillis();
+            String hash = files.get(identity);
+            if (hash == null) {
+                MessageDigest digest = sha256();
+                long offset = spool().size();
+                long length = 0;
+                try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+                    byte[] buffer = new byte[64 * 1024];
+                    int read;
+                    while ((read = in.read(buffer)) > 0) {
+                        write(ByteBuffer.wrap(buffer, 0, read), offset + length);
+                        length += read;
+                    }
+                }
+                hash = HexFormat.of().formatHex(digest.digest());
+                if (blobs.containsKey(hash)) {
+                    spool.truncate(offset);
+                } else {
+                    blobs.put(hash, new Blob(offset, length));
+                }
+                files.put(identity, hash);
+            }
+            return hash;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read multipart file " + file, e);
+        }
+    }
+
+    public synchronized void record(Key key, String request, Recorded response) {
+        recorded.add(new Interaction(key, request, response));
+    }
+
+    /**
+     * Число взаимодействий: записанных в этом прогоне или прочитанных из файла.
+     */
+    public synchronized int size() {
+        return recorded.size() + replays.values().stream().mapToInt(replay -> replay.responses.size()).sum();
+    }
+
+    /**
+     * Следующий записанный ответ на такой же запрос в порядке записи.
+     * null — такого запроса в кассете нет или все его ответы уже отданы, см. {@link #recorded(Key)}.
+     */
+    public Recorded next(Key key) {
+        Replay replay = replays.get(key);
+        if (replay == null) {
+            return null;
+        }
+        int index = replay.cursor.getAndIncrement();
+        return index < replay.responses.size() ? replay.responses.get(index) : null;
+    }
+
+    /**
+     * Сколько ответов на такой запрос записано.
+     */
+    public int recorded(Key key) {
+        Replay replay = replays.get(key);
+        return replay == null ? 0 : replay.responses.size();
+    }
+
+    /**
+     * Описания записанных запросов с тем же методом и путём — для сообщения о расхождении.
+     */
+    /**
+     * Часы, остановленные на начале записи; для новой кассеты — на её создании.
+     */
+    public Clock clock() {
+        return Clock.fixed(recordedAt, ZoneOffset.UTC);
+    }
+
+    public List<String> recordedRequests(String method, String path) {
+        return requestsByPath.getOrDefault(method + " " + path, List.of());
+    }
+
+    public synchronized void write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeLong(recordedAt.toEpochMilli());
+            out.writeInt(blobs.size());
+            byte[] buffer = new byte[64 * 1024];
+            for (Map.Entry<String, Blob> blob : blobs.entrySet()) {
+                out.write(HexFormat.of().parseHex(blob.getKey()));
+                out.writeInt((int) blob.getValue().length());
+                long position = blob.getValue().offset();
+                long end = position + blob.getValue().length();
+                while (position < end) {
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, (int) Math.min(buffer.length, end - position));
+                    while (chunk.hasRemaining()) {
+                        if (spool.read(chunk, position + chunk.position()) < 0) {
+                            throw new IOException("Multipart spool ended early");
+                        }
+                    }
+                    out.write(buffer, 0, chunk.limit());
+                    position += chunk.limit();
+                }
+            }
+            out.writeInt(recorded.size());
+            for (Interaction interaction : recorded) {
+                string(out, interaction.key().method());
+                string(out, interaction.key().path());
+                string(out, interaction.key().hash());
+                string(out, interaction.request());
+                Recorded response = interaction.response();
+                out.writeInt(response.status());
+                out.writeInt(response.headers().size());
+                for (Map.Entry<String, String> header : response.headers().entrySet()) {
+                    string(out, header.getKey());
+                    string(out, header.getValue());
+                }
+                out.writeInt(response.body().remaining());
+                out.write(bytes(response.body()));
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static byte[] sha256(byte[] content) {
+        return sha256().digest(content);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Временный файл удаляется при закрытии канала или при выходе из JVM
+    private FileChannel spool() throws IOException {
+        if (spool == null) {
+            spool = FileChannel.open(Files.createTempFile("cassette", ".blobs"), StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        }
+        return spool;
+    }
+
+    private void write(ByteBuffer content, long position) throws IOException {
+        while (content.hasRemaining()) {
+            position += spool.write(content, position);
+        }
+    }
+
+    static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static String string(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void string(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * hash — SHA-256 метода, пути и тела запроса (части multipart — по хэшам содержимого).
+     */
+    public record Key(String method, String path, String hash) {
+    }
+
+    public record Recorded(int status, Map<String, String> headers, ByteBuffer body) {
+    }
+
+    private record Interaction(Key key, String request, Recorded response) {
+    }
+
+    private record Blob(long offset, long length) {
+    }
+
+    // Одинаковые запросы (например, создание поста) воспроизводятся в порядке записи
+    private static final class Replay {
+        private final List<Recorded> responses = new ArrayList<>();
+        private final AtomicInteger cursor = new AtomicInteger();
+    }
+}
@@ -0,0 +1,160 @@
+package org.example;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import io.restassured.specification.MultiPartSpecification;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Запись ответов API в {@link Cassette} или их воспроизведение без сети.
+ * Запрос опознаётся по методу, пути и хэшу тела; из заголовков учитывается только то, есть ли
+ * Authorization, — сам токен в каждом прогоне свой. Запросы не к {@link Endpoint#baseUrl()} (тесты
+ * со своей заглушкой или прокси) идут мимо кассеты.
+ * UUID в пути и теле заменяются на {uuid}: id постов и комментариев выдаёт сервер, и в другом
+ * прогоне тот же по смыслу запрос придёт с другим id (пул фикстур создаёт их параллельно).
+ * Части multipart описываются хэшем содержимого, картинки не попадают в ключ целиком.
+ * Потоковые части ({@link UploadFixtures#generated}) прочитать без потери нельзя, они
+ * опознаются по имени файла и MIME-типу.
+ * <p>
+ * Если при воспроизведении записанного запроса нет, это расхождение (drift): тест падает
+ * с описанием запроса и того, что записано по тому же пути. Если такой запрос отправлен больше раз,
+ * чем записан, тест тоже падает (cassette exhausted), а не получает последний ответ повторно.
+ */
+public class CassetteFilter implements Filter {
+
+    public enum Mode { RECORD, REPLAY }
+
+    private static final Pattern UUID = Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    private final Cassette cassette;
+    private final Mode mode;
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder drifted = new LongAdder();
+
+    public CassetteFilter(Cassette cassette, Mode mode) {
+        this.cassette = cassette;
+        this.mode = mode;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification request,
+                           FilterableResponseSpecification response,
+                           FilterContext context) {
+        if (!isApi(request.getURI())) {
+            return context.next(request, response);
+        }
+        String path = normalize(request.getDerivedPath());
+        String description = normalize(describe(request));
+        Cassette.Key key = new Cassette.Key(request.getMethod(), path, hash(request.getMethod(), path, description));
+        if (mode == Mode.RECORD) {
+            Response live = context.next(request, response);
+            Map<String, String> headers = new LinkedHashMap<>();
+            for (Header header : live.getHeaders()) {
+                headers.put(header.getName(), header.getValue());
+            }
+            cassette.record(key, description, new Cassette.Recorded(live.statusCode(), headers, ByteBuffer.wrap(live.asByteArray())));
+            return live;
+        }
+        Cassette.Recorded recorded = cassette.next(key);
+        if (recorded == null) {
+            drifted.increment();
+            int count = cassette.recorded(key);
+            if (count > 0) {
+                throw new IllegalStateException("Cassette exhausted: all " + count + " recorded responses for " + key.method()
+                        + " " + key.path() + " " + description + " were already replayed");
+            }
+            throw new IllegalStateException("Cassette drift: no recorded response for " + key.method() + " " + key.path()
+                    + " " + description + "; recorded for this path: " + cassette.recordedRequests(key.method(), key.path()));
+        }
+        replayed.increment();
+        List<Header> headers = new ArrayList<>();
+        recorded.headers().forEach((name, value) -> headers.add(new Header(name, value)));
+        return new ResponseBuilder()
+                .setStatusCode(recorded.status())
+                .setStatusLine("HTTP/1.1 " + recorded.status())
+                .setHeaders(new Headers(headers))
+                .setContentType(recorded.headers().getOrDefault("Content-Type", Endpoint.JSON))
+                .setBody(Cassette.bytes(recorded.body()))
+                .build();
+    }
+
+    public long replayed() {
+        return replayed.sum();
+    }
+
+    public long drifted() {
+        return drifted.sum();
+    }
+
+    private String describe(FilterableRequestSpecification request) {
+        String body = body(request);
+        return request.getHeaders().hasHeaderWithName("Authorization") ? "[auth] " + body : body;
+    }
+
+    private String body(FilterableRequestSpecification request) {
+        List<MultiPartSpecification> parts = request.getMultiPartParams();
+        if (parts.isEmpty()) {
+            Object body = request.getBody();
+            if (body == null) {
+                return "";
+            }
+            return body instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : body.toString();
+        }
+        StringBuilder description = new StringBuilder();
+        for (MultiPartSpecification part : parts) {
+            if (description.length() > 0) {
+                description.append(", ");
+            }
+            description.append(part.getControlName()).append('=').append(content(part));
+        }
+        return description.toString();
+    }
+
+    private String content(MultiPartSpecification part) {
+        Object content = part.getContent();
+        if (content instanceof String text) {
+            return text;
+        }
+        String name = part.hasFileName() ? part.getFileName() : "";
+        if (content instanceof byte[] bytes) {
+            return name + "#sha256:" + cassette.blob(bytes);
+        }
+        if (content instanceof java.io.File file) {
+            return name + "#sha256:" + cassette.blob(file.toPath());
+        }
+        return name + "#stream:" + part.getMimeType();
+    }
+
+    // getURI начинается с baseUri запроса в том виде, в каком его задали, — как Endpoint.baseUrl() в ApiSpecs
+    private static boolean isApi(String uri) {
+        String api = Endpoint.baseUrl();
+        if (!uri.startsWith(api)) {
+            return false;
+        }
+        return uri.length() == api.length() || uri.charAt(api.length()) == '/' || uri.charAt(api.length()) == '?';
+    }
+
+    private static String normalize(String text) {
+        return UUID.matcher(text).replaceAll("{uuid}");
+    }
+
+    private static String hash(String method, String path, String description) {
+        byte[] digest = Cassette.sha256((method + ' ' + path + '\n' + description).getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest, 0, 16);
+    }
+}
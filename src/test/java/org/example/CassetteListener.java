@@ -0,0 +1,79 @@
+package org.example;
+
+import io.restassured.RestAssured;
+import org.testng.IExecutionListener;
+import org.testng.IReporter;
+import org.testng.ISuite;
+import org.testng.xml.XmlSuite;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.List;
+
+/**
+ * Режим записи и воспроизведения трафика API:
+ * <ul>
+ *     <li>-Dapi.cassette=record — ответы живого API (или заглушки) пишутся в кассету в конце прогона;</li>
+ *     <li>-Dapi.cassette=replay — ответы отдаются из кассеты без сети, незаписанный запрос роняет тест.</li>
+ * </ul>
+ * Файл: -Dapi.cassette.file (cassettes/api.cassette). Одинаковые запросы воспроизводятся
+ * в порядке записи, поэтому записывать и воспроизводить стоит в одном режиме (последовательно или -Pparallel).
+ * При воспроизведении срок токенов {@link TokenProvider} проверяется по времени записи кассеты.
+ * Итог записи или воспроизведения — в target/cassette-report.txt и в Allure, см. {@link RunReport}.
+ */
+public class CassetteListener implements IExecutionListener, IReporter {
+
+    private static final Path DEFAULT_FILE = Path.of("cassettes", "api.cassette");
+
+    private Cassette cassette;
+    private CassetteFilter filter;
+    private CassetteFilter.Mode mode;
+    private Path file;
+
+    @Override
+    public void onExecutionStart() {
+        String property = System.getProperty("api.cassette");
+        if (property == null || property.isBlank()) {
+            return;
+        }
+        mode = CassetteFilter.Mode.valueOf(property.trim().toUpperCase());
+        file = Path.of(System.getProperty("api.cassette.file", DEFAULT_FILE.toString()));
+        try {
+            cassette = mode == CassetteFilter.Mode.RECORD ? Cassette.recording() : Cassette.open(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open cassette " + file, e);
+        }
+        if (mode == CassetteFilter.Mode.REPLAY) {
+            TokenProvider.shared().clock(cassette.clock());
+        }
+        filter = new CassetteFilter(cassette, mode);
+        RestAssured.filters(filter);
+    }
+
+    @Override
+    public void generateReport(List<XmlSuite> xmlSuites, List<ISuite> suites, String outputDirectory) {
+        if (filter == null) {
+            return;
+        }
+        String report = mode == CassetteFilter.Mode.RECORD
+                ? "Cassette: recorded " + cassette.size() + " interactions to " + file
+                : "Cassette: replayed " + filter.replayed() + " responses from " + file + ", drift on " + filter.drifted() + " requests";
+        RunReport.publish("Cassette", "cassette-report.txt", report + "\n");
+    }
+
+    @Override
+    public void onExecutionFinish() {
+        if (filter != null && mode == CassetteFilter.Mode.REPLAY) {
+            TokenProvider.shared().clock(Clock.systemUTC());
+        }
+        if (filter != null && mode == CassetteFilter.Mode.RECORD) {
+            try {
+                cassette.write(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write cassette " + file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.example;
+
+import io.qameta.allure.Description;
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+@Epic("Инфраструктура тестов")
+public class CassetteTests {
+
+    @Test
+    @Feature("Запись и воспроизведение трафика")
+    @Description("Записанные ответы читаются из файла в порядке записи и не повторяются, двоичные части хранятся один раз.")
+    public void givenRecordedInteractions_whenOpened_thenReplayedInOrder() throws Exception {
+        Path file = Files.createTempDirectory("cassette").resolve("api.cassette");
+        byte[] image = new byte[10_000];
+        Cassette recording = Cassette.recording();
+        String hash = recording.blob(image);
+        Cassette.Key create = new Cassette.Key("POST", "/posts", "create");
+        recording.record(create, "file=sc.png#sha256:" + hash, response(201, "{\"id\":\"1\"}"));
+        recording.record(create, "file=sc.png#sha256:" + recording.blob(image.clone()), response(201, "{\"id\":\"2\"}"));
+        Path upload = Files.write(file.resolveSibling("sc.png"), image);
+        Assert.assertEquals(recording.blob(upload), hash, "file part must be keyed by content");
+        recording.write(file);
+
+        Cassette replay = Cassette.open(file);
+
+        Assert.assertEquals(replay.size(), 2);
+        Assert.assertEquals(body(replay.next(create)), "{\"id\":\"1\"}");
+        Assert.assertEquals(body(replay.next(create)), "{\"id\":\"2\"}");
+        Assert.assertNull(replay.next(create), "cassette must be exhausted, not repeat the last response");
+        Assert.assertEquals(replay.recorded(create), 2);
+        Assert.assertNull(replay.next(new Cassette.Key("POST", "/posts", "changed")));
+        Assert.assertEquals(replay.recordedRequests("POST", "/posts").size(), 2);
+        Assert.assertTrue(Files.size(file) < 2L * image.length, "blob must be stored once, size " + Files.size(file));
+    }
+
+    @Test
+    @Feature("Запись и воспроизведение трафика")
+    @Description("Токены из кассеты, записанной больше часа назад, при воспроизведении не истекают и не вызывают незаписанный логин.")
+    public void givenCassetteWithExpiredTokens_whenReplayed_thenSessionsStillValid() throws Exception {
+        Path file = Files.createTempDirectory("cassette").resolve("api.cassette");
+        Instant recordedAt = Instant.now().minus(Duration.ofHours(2));
+        Cassette.recording(recordedAt).write(file);
+        String email = "expired-" + UUID.randomUUID() + "@example.com";
+        TokenProvider.Session session = new TokenProvider.Session("recorded-token", "user-1", recordedAt.plus(Duration.ofHours(1)));
+
+        TokenProvider.shared().remember(email, "password", session);
+        Assert.assertNull(TokenProvider.shared().cached(email, "password"), "token must be expired by the wall clock");
+
+        Cassette replay = Cassette.open(file);
+        TokenProvider.shared().clock(replay.clock());
+        try {
+            TokenProvider.shared().remember(email, "password", session);
+            // Без остановленных часов здесь был бы логин, которого нет в кассете
+            Assert.assertEquals(TokenProvider.shared().session(email, "password"), session);
+        } finally {
+            TokenProvider.shared().clock(Clock.systemUTC());
+            TokenProvider.shared().invalidate(session.accessToken());
+        }
+    }
+
+    private static Cassette.Recorded response(int status, String body) {
+        return new Cassette.Recorded(status, Map.of("Content-Type", Endpoint.JSON),
+                ByteBuffer.wrap(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String body(Cassette.Recorded recorded) {
+        return new String(Cassette.bytes(recorded.body()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,34 @@
+package org.example;
+
+import io.qameta.allure.Description;
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Epic("Инфраструктура тестов")
+public class EndpointTests {
+
+    @Test
+    @Feature("Каталог эндпоинтов")
+    @Description("Параметры подставляются в шаблон пути, число параметров проверяется.")
+    public void givenTemplate_whenExpand_thenPathBuilt() {
+        Assert.assertEquals(Endpoint.UPDATE_POST.expand("42"), "/posts/42");
+        Assert.assertEquals(Endpoint.LOGIN.expand(), "/auth/login");
+        Assert.assertThrows(IllegalArgumentException.class, () -> Endpoint.DELETE_COMMENT.expand());
+    }
+
+    @Test
+    @Feature("Каталог эндпоинтов")
+    @Description("Конкретный путь сопоставляется с эндпоинтом по методу и сегментам.")
+    public void givenConcretePath_whenMatch_thenEndpointResolved() {
+        Assert.assertEquals(Endpoint.match("PATCH", "/posts/42"), Endpoint.UPDATE_POST);
+        Assert.assertEquals(Endpoint.match("DELETE", "/posts/42/"), Endpoint.DELETE_POST);
+        Assert.assertEquals(Endpoint.match("GET", "/posts?page=2"), Endpoint.GET_POSTS);
+        Assert.assertEquals(Endpoint.match("POST", "/posts"), Endpoint.CREATE_POST);
+        Assert.assertEquals(Endpoint.match("GET", "/users/7"), Endpoint.USER_INFO);
+        Assert.assertNull(Endpoint.match("GET", "/posts/42/comments"));
+        Assert.assertNull(Endpoint.match("GET", "/posts//"));
+        Assert.assertNull(Endpoint.match("PUT", "/posts/42"));
+    }
+}
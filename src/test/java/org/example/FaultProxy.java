@@ -0,0 +1,526 @@
+package org.example;
+
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Обратный HTTP/1.1-прокси на loopback перед {@link Endpoint#baseUrl()} или заглушкой, вносящий
+ * неисправности {@link Faults} по эндпоинтам каталога. Клиент ходит в прокси по http, прокси к серверу —
+ * по схеме upstream (https — через TLS с подменой Host), поэтому правила видят метод и путь запроса.
+ * <p>
+ * HTTP разбирается ровно настолько, чтобы найти границы тел (Content-Length, chunked или до закрытия),
+ * keep-alive сохраняется: на каждое клиентское соединение — виртуальный поток и своё соединение к серверу.
+ * Обрыв — RST клиенту до отправки запроса на сервер, ошибка — синтетический ответ без обращения к серверу,
+ * задержка — перед ответом, ограничение полосы — на тело запроса к серверу и на весь ответ клиенту.
+ * <p>
+ * Протухшее keep-alive соединение к серверу проверяется перед отправкой и заменяется новым. Если сервер
+ * всё же оборвал соединение, запрос отправляется повторно, только когда заголовки не ушли на сервер или метод
+ * безопасный (GET, HEAD, OPTIONS): POST, PATCH или DELETE прокси не повторяет, клиент получает обрыв.
+ * Ответ сервера ждём не дольше -Dhttp.readTimeout (мс), как и клиент в {@link ApiSpecs}.
+ * В тестах поднимается {@link LocalStubListener}, в нагрузке — {@link LoadRunner}, оба по -Dfaults, см. {@link #rules}.
+ */
+public final class FaultProxy implements AutoCloseable {
+
+    static final String PROPERTY = "faults";
+
+    private static final int CONNECT_TIMEOUT_MILLIS = Integer.getInteger("http.connectTimeout", 5_000);
+    private static final int READ_TIMEOUT_MILLIS = Integer.getInteger("http.readTimeout", 30_000);
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    private static final int LINE_LIMIT = 16 * 1024;
+    private static final int BUFFER = 8 * 1024;
+    private static final Endpoint[] ENDPOINTS = Endpoint.values();
+
+    private final URI upstream;
+    private final ServerSocket server;
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Socket> open = ConcurrentHashMap.newKeySet();
+    private final Map<Endpoint, Faults> rules = new ConcurrentHashMap<>();
+    // Номер запроса по эндпоинту для детерминированных долей; последний элемент — запросы мимо каталога
+    private final AtomicLongArray counters = new AtomicLongArray(ENDPOINTS.length + 1);
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder delayed = new LongAdder();
+    private final LongAdder resets = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private volatile Faults defaults = Faults.NONE;
+
+    public FaultProxy(String upstreamBaseUrl) throws IOException {
+        upstream = URI.create(upstreamBaseUrl);
+        server = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Правила по описанию вида "*:latency=50ms;WHO_AM_I:error=0.2,status=502;DELETE_POST:reset=0.1",
+     * где "*" — все эндпоинты без своего правила, остальное — имена {@link Endpoint} и {@link Faults#parse}.
+     */
+    public FaultProxy rules(String spec) {
+        for (String rule : spec.split(";")) {
+            if (rule.isBlank()) {
+                continue;
+            }
+            String[] pair = rule.trim().split(":", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected ENDPOINT:faults in fault spec: " + rule);
+            }
+            Faults faults = Faults.parse(pair[1]);
+            if ("*".equals(pair[0].trim())) {
+                faults(faults);
+            } else {
+                faults(Endpoint.valueOf(pair[0].trim()), faults);
+            }
+        }
+        return this;
+    }
+
+    public FaultProxy start() {
+        connections.submit(this::accept);
+        return this;
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getLocalPort();
+    }
+
+    /**
+     * Неисправности для всех эндпоинтов без своего правила.
+     */
+    public FaultProxy faults(Faults faults) {
+        defaults = faults;
+        return this;
+    }
+
+    /**
+     * Неисправности одного эндпоинта; счёт запросов для долей начинается заново.
+     */
+    public FaultProxy faults(Endpoint endpoint, Faults faults) {
+        rules.put(endpoint, faults);
+        counters.set(endpoint.ordinal(), 0);
+        return this;
+    }
+
+    public Stats stats() {
+        return new Stats(requests.sum(), delayed.sum(), resets.sum(), errors.sum());
+    }
+
+    @Override
+    public void close() {
+        try {
+            server.close();
+        } catch (IOException ignored) {
+            // прокси всё равно останавливается
+        }
+        for (Socket socket : open) {
+            closeQuietly(socket);
+        }
+        connections.shutdownNow();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket client = server.accept();
+                open.add(client);
+                connections.submit(() -> serve(client));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket client) {
+        Upstream target = null;
+        try (client) {
+            client.setTcpNoDelay(true);
+            InputStream fromClient = new BufferedInputStream(client.getInputStream(), BUFFER);
+            OutputStream toClient = new BufferedOutputStream(client.getOutputStream(), BUFFER);
+            Head request;
+            while ((request = Head.read(fromClient)) != null) {
+                Endpoint endpoint = Endpoint.match(request.method(), request.path());
+                Faults faults = endpoint == null ? defaults : rules.getOrDefault(endpoint, defaults);
+                long number = counters.getAndIncrement(endpoint == null ? ENDPOINTS.length : endpoint.ordinal());
+                requests.increment();
+                if (faults.resets(number)) {
+                    resets.increment();
+                    client.setSoLinger(true, 0);
+                    return;
+                }
+                // Тело читаем целиком: при протухшем keep-alive к серверу запрос нужно отправить повторно
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                copyBody(request, request.requestFraming(), fromClient, body);
+                boolean close = request.closes();
+                if (faults.fails(number)) {
+                    errors.increment();
+                    writeError(toClient, faults.errorStatus(), close);
+                } else {
+                    if (target != null && target.stale()) {
+                        disconnect(target);
+                        target = null;
+                    }
+                    if (target == null) {
+                        target = connect();
+                    }
+                    Head response = target.exchange(request, body.toByteArray(), faults.bytesPerSecond());
+                    if (response == null) {
+                        disconnect(target);
+                        target = connect();
+                        response = target.exchange(request, body.toByteArray(), faults.bytesPerSecond());
+                        if (response == null) {
+                            throw new EOFException("Upstream closed the connection without a response");
+                        }
+                    }
+                    long delay = faults.delayNanos();
+                    if (delay > 0) {
+                        delayed.increment();
+                        TimeUnit.NANOSECONDS.sleep(delay);
+                    }
+                    OutputStream out = faults.bytesPerSecond() > 0 ? new Throttled(toClient, faults.bytesPerSecond()) : toClient;
+                    response.write(out);
+                    Framing framing = response.responseFraming(request.method());
+                    copyBody(response, framing, target.in(), out);
+                    close |= response.closes() || framing == Framing.UNTIL_CLOSE;
+                }
+                toClient.flush();
+                if (close) {
+                    return;
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // Клиент или сервер закрыл соединение — закрываем и второе
+        } finally {
+            open.remove(client);
+            if (target != null) {
+                disconnect(target);
+            }
+        }
+    }
+
+    private Upstream connect() throws IOException {
+        boolean tls = "https".equalsIgnoreCase(upstream.getScheme());
+        int port = upstream.getPort() > 0 ? upstream.getPort() : tls ? 443 : 80;
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress(upstream.getHost(), port), CONNECT_TIMEOUT_MILLIS);
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+        if (tls) {
+            // Слой TLS поверх уже подключённого сокета: SNI и проверка сертификата по имени upstream
+            SSLSocket secure = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory.getDefault())
+                    .createSocket(socket, upstream.getHost(), port, true);
+            secure.startHandshake();
+            socket = secure;
+        }
+        open.add(socket);
+        return new Upstream(socket, new BufferedInputStream(socket.getInputStream(), BUFFER),
+                new BufferedOutputStream(socket.getOutputStream(), BUFFER), upstream.getRawAuthority());
+    }
+
+    private void disconnect(Upstream target) {
+        open.remove(target.socket());
+        closeQuietly(target.socket());
+    }
+
+    private static void writeError(OutputStream out, int status, boolean close) throws IOException {
+        byte[] body = ("{\"statusCode\":" + status + ",\"message\":\"Injected by FaultProxy\"}").getBytes(StandardCharsets.UTF_8);
+        String head = "HTTP/1.1 " + status + " Injected Fault\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Content-Length: " + body.length + "\r\n"
+                + (close ? "Connection: close\r\n" : "")
+                + "\r\n";
+        out.write(head.getBytes(StandardCharsets.ISO_8859_1));
+        out.write(body);
+    }
+
+    private static void copyBody(Head head, Framing framing, InputStream in, OutputStream out) throws IOException {
+        switch (framing) {
+            case NONE -> {
+            }
+            case LENGTH -> copy(in, out, head.contentLength());
+            case CHUNKED -> {
+                while (true) {
+                    String size = readLine(in);
+                    writeLine(out, size);
+                    int separator = size.indexOf(';');
+                    long length = Long.parseLong((separator < 0 ? size : size.substring(0, separator)).trim(), 16);
+                    if (length == 0) {
+                        String trailer;
+                        do {
+                            trailer = readLine(in);
+                            writeLine(out, trailer);
+                        } while (!trailer.isEmpty());
+                        return;
+                    }
+                    copy(in, out, length);
+                    writeLine(out, readLine(in));
+                }
+            }
+            case UNTIL_CLOSE -> in.transferTo(out);
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out, long length) throws IOException {
+        byte[] buffer = new byte[BUFFER];
+        while (length > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, length));
+            if (read < 0) {
+                throw new EOFException("Body ended " + length + " bytes early");
+            }
+            out.write(buffer, 0, read);
+            length -= read;
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int next;
+        while ((next = in.read()) != '\n') {
+            if (next < 0) {
+                if (line.isEmpty()) {
+                    return null;
+                }
+                throw new EOFException("Connection closed mid-line");
+            }
+            if (line.length() > LINE_LIMIT) {
+                throw new IOException("HTTP line longer than " + LINE_LIMIT + " bytes");
+            }
+            line.append((char) next);
+        }
+        int end = line.length();
+        return end > 0 && line.charAt(end - 1) == '\r' ? line.substring(0, end - 1) : line.toString();
+    }
+
+    private static void writeLine(OutputStream out, String line) throws IOException {
+        if (line == null) {
+            throw new EOFException("Connection closed mid-body");
+        }
+        out.write(line.getBytes(StandardCharsets.ISO_8859_1));
+        out.write('\r');
+        out.write('\n');
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // уже закрыт
+        }
+    }
+
+    /**
+     * requests — все запросы через прокси, остальное — сколько из них задержано, оборвано и отвечено ошибкой.
+     */
+    public record Stats(long requests, long delayed, long resets, long errors) {
+    }
+
+    private enum Framing { NONE, LENGTH, CHUNKED, UNTIL_CLOSE }
+
+    // Стартовая строка и заголовки как есть; меняется только Host при отправке на сервер
+    private record Head(String startLine, List<String> headers) {
+
+        static Head read(InputStream in) throws IOException {
+            String startLine = readLine(in);
+            while (startLine != null && startLine.isEmpty()) {
+                startLine = readLine(in);
+            }
+            if (startLine == null) {
+                return null;
+            }
+            List<String> headers = new ArrayList<>();
+            String line;
+            while ((line = readLine(in)) != null && !line.isEmpty()) {
+                headers.add(line);
+            }
+            return new Head(startLine, headers);
+        }
+
+        String method() {
+            return startLine.substring(0, startLine.indexOf(' '));
+        }
+
+        String path() {
+            String target = startLine.split(" ")[1];
+            int query = target.indexOf('?');
+            return query < 0 ? target : target.substring(0, query);
+        }
+
+        int status() {
+            return Integer.parseInt(startLine.split(" ")[1]);
+        }
+
+        String header(String name) {
+            for (String header : headers) {
+                int colon = header.indexOf(':');
+                if (colon > 0 && header.substring(0, colon).trim().equalsIgnoreCase(name)) {
+                    return header.substring(colon + 1).trim();
+                }
+            }
+            return null;
+        }
+
+        long contentLength() {
+            return Long.parseLong(header("Content-Length"));
+        }
+
+        boolean closes() {
+            String connection = header("Connection");
+            return connection != null && connection.toLowerCase(Locale.ROOT).contains("close");
+        }
+
+        Framing requestFraming() {
+            if (chunked()) {
+                return Framing.CHUNKED;
+            }
+            return header("Content-Length") != null ? Framing.LENGTH : Framing.NONE;
+        }
+
+        Framing responseFraming(String requestMethod) {
+            int status = status();
+            if ("HEAD".equals(requestMethod) || status / 100 == 1 || status == 204 || status == 304) {
+                return Framing.NONE;
+            }
+            if (chunked()) {
+                return Framing.CHUNKED;
+            }
+            return header("Content-Length") != null ? Framing.LENGTH : Framing.UNTIL_CLOSE;
+        }
+
+        void write(OutputStream out) throws IOException {
+            writeHead(out, null);
+        }
+
+        void writeHead(OutputStream out, String host) throws IOException {
+            writeLine(out, startLine);
+            for (String header : headers) {
+                boolean isHost = header.regionMatches(true, 0, "Host:", 0, 5);
+                writeLine(out, isHost && host != null ? "Host: " + host : header);
+            }
+            writeLine(out, "");
+        }
+
+        private boolean chunked() {
+            String encoding = header("Transfer-Encoding");
+            return encoding != null && encoding.toLowerCase(Locale.ROOT).contains("chunked");
+        }
+    }
+
+    private record Upstream(Socket socket, InputStream in, OutputStream out, String host) {
+
+        // null — ответа нет, но запрос можно отправить по новому соединению: заголовки до сервера
+        // не дошли или метод безопасный; иначе сервер мог его уже выполнить, и обрыв уходит клиенту
+        Head exchange(Head request, byte[] body, long bytesPerSecond) throws IOException {
+            boolean sent = false;
+            try {
+                request.writeHead(out, host);
+                out.flush();
+                sent = true;
+                // Заголовки уходят сразу, тело — с ограничением полосы
+                (bytesPerSecond > 0 ? new Throttled(out, bytesPerSecond) : out).write(body);
+                out.flush();
+                Head response = Head.read(in);
+                if (response == null) {
+                    throw new EOFException("Upstream closed the connection without a response to " + request.method());
+                }
+                return response;
+            } catch (SocketTimeoutException e) {
+                throw e;
+            } catch (IOException e) {
+                if (sent && !SAFE_METHODS.contains(request.method())) {
+                    throw e;
+                }
+                return null;
+            }
+        }
+
+        // Сервер закрыл простаивавшее соединение или прислал что-то без запроса — отправлять по нему нельзя
+        boolean stale() {
+            try {
+                if (socket.isClosed() || in.available() > 0) {
+                    return true;
+                }
+                socket.setSoTimeout(1);
+                try {
+                    // Дождались конца потока или лишнего байта
+                    in.read();
+                    return true;
+                } catch (SocketTimeoutException e) {
+                    return false;
+                } finally {
+                    socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+                }
+            } catch (IOException e) {
+                return true;
+            }
+        }
+    }
+
+    // Пишет порциями и выдерживает темп bytesPerSecond от первого записанного байта
+    private static final class Throttled extends FilterOutputStream {
+
+        private final long bytesPerSecond;
+        private final int chunk;
+        private long start;
+        private long written;
+
+        Throttled(OutputStream out, long bytesPerSecond) {
+            super(out);
+            this.bytesPerSecond = bytesPerSecond;
+            this.chunk = (int) Math.max(1, Math.min(BUFFER, bytesPerSecond / 20));
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int part = Math.min(chunk, len);
+                out.write(b, off, part);
+                off += part;
+                len -= part;
+                out.flush();
+                pace(part);
+            }
+        }
+
+        private void pace(long bytes) throws IOException {
+            if (start == 0) {
+                start = System.nanoTime();
+            }
+            written += bytes;
+            long wait = start + written * 1_000_000_000L / bytesPerSecond - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while throttling", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.example;
+
+import io.qameta.allure.Description;
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import io.restassured.response.Response;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@Epic("Инфраструктура тестов")
+public class FaultProxyTests {
+
+    @Test
+    @Feature("Сбои сети и повторы")
+    @Description("Через прокси со сбоями GET проходит с повторами после 503 и обрыва соединения, задержка видна клиенту, а POST не повторяется.")
+    public void givenFaultyProxy_whenRequestsRetried_thenIdempotentSucceedAndPostNotRepeated() throws Exception {
+        // Запросы к прокси идут мимо кассеты, а без живого API за прокси записанным токенам не ответить
+        String cassette = System.getProperty("api.cassette");
+        if (cassette != null && !cassette.isBlank()) {
+            throw new SkipException("Fault proxy needs a live API behind it, not a cassette");
+        }
+        RetryFilter retries = new RetryFilter(new RetryPolicy(4, Duration.ofMillis(5), Duration.ofMillis(20), Duration.ofSeconds(5)));
+        SoftAssert softAssert = new SoftAssert();
+        TestContext.start();
+        try (FaultProxy proxy = new FaultProxy(Endpoint.baseUrl()).start()) {
+            TestData testData = TestContext.current();
+            proxy.faults(Endpoint.WHO_AM_I, Faults.NONE.withErrors(0.5, 503).withLatency(Duration.ofMillis(30), Duration.ZERO))
+                    .faults(Endpoint.USER_LIST, Faults.NONE.withResets(0.5))
+                    .faults(Endpoint.CREATE_COMMENT, Faults.NONE.withErrors(1, 502));
+
+            for (int i = 0; i < 4; i++) {
+                long start = System.nanoTime();
+                Response whoAmI = ApiSpecs.authorized(testData, Endpoint.WHO_AM_I).baseUri(proxy.baseUrl()).filter(retries).get();
+                softAssert.assertEquals(whoAmI.statusCode(), 200, "whoami through 503s");
+                softAssert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(30), "Injected latency not observed");
+                Response users = ApiSpecs.authorized(testData, Endpoint.USER_LIST).baseUri(proxy.baseUrl()).filter(retries).get();
+                softAssert.assertEquals(users.statusCode(), 200, "user list through connection resets");
+            }
+            FaultProxy.Stats idempotent = proxy.stats();
+            // Под -Dfaults адрес API сам за прокси со сбоями, и повторов бывает больше
+            softAssert.assertTrue(retries.retries() >= idempotent.errors() + idempotent.resets(),
+                    "Fewer retries than injected faults: " + retries.retries() + " for " + idempotent);
+            softAssert.assertTrue(idempotent.errors() > 0 && idempotent.resets() > 0, "Faults were not injected: " + idempotent);
+            softAssert.assertEquals(retries.exhausted(), 0L, "Retries exhausted");
+
+            Response comment = ApiSpecs.authorized(testData, Endpoint.CREATE_COMMENT).baseUri(proxy.baseUrl()).filter(retries)
+                    .body("{\"text\":\"retry\"}")
+                    .post();
+            softAssert.assertEquals(comment.statusCode(), 502, "POST must return the injected error");
+            softAssert.assertEquals(proxy.stats().requests(), idempotent.requests() + 1, "POST was repeated");
+        } finally {
+            TestContext.clear();
+        }
+        softAssert.assertAll();
+    }
+}
@@ -0,0 +1,107 @@
+package org.example;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Неисправности, которые {@link FaultProxy} вносит в запросы к одному эндпоинту:
+ * задержка ответа (latency + равномерный jitter), ограничение полосы в обе стороны,
+ * обрыв соединения (RST до отправки запроса на сервер) и синтетический ответ с кодом errorStatus.
+ * <p>
+ * Доли resetRate и errorRate выдерживаются детерминированно, а не случайно: при доле 0.25
+ * сбоит ровно каждый четвёртый запрос к эндпоинту, поэтому тесты на прокси воспроизводимы.
+ */
+public record Faults(Duration latency, Duration jitter, long bytesPerSecond, double resetRate, double errorRate, int errorStatus) {
+
+    public static final Faults NONE = new Faults(Duration.ZERO, Duration.ZERO, 0, 0, 0, 503);
+
+    public Faults {
+        if (resetRate < 0 || resetRate > 1 || errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("Fault rates must be within [0, 1]");
+        }
+        if (bytesPerSecond < 0) {
+            throw new IllegalArgumentException("bytesPerSecond must not be negative");
+        }
+    }
+
+    public Faults withLatency(Duration latency, Duration jitter) {
+        return new Faults(latency, jitter, bytesPerSecond, resetRate, errorRate, errorStatus);
+    }
+
+    /**
+     * @param bytesPerSecond 0 — без ограничения
+     */
+    public Faults withBandwidth(long bytesPerSecond) {
+        return new Faults(latency, jitter, bytesPerSecond, resetRate, errorRate, errorStatus);
+    }
+
+    public Faults withResets(double rate) {
+        return new Faults(latency, jitter, bytesPerSecond, rate, errorRate, errorStatus);
+    }
+
+    public Faults withErrors(double rate, int status) {
+        return new Faults(latency, jitter, bytesPerSecond, resetRate, rate, status);
+    }
+
+    /**
+     * Разбор описания вида "latency=200ms,jitter=50ms,bandwidth=256k,reset=0.1,error=0.2,status=502".
+     */
+    public static Faults parse(String spec) {
+        Faults faults = NONE;
+        for (String setting : spec.split(",")) {
+            String[] pair = setting.trim().split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected key=value in fault spec: " + setting);
+            }
+            String value = pair[1].trim();
+            faults = switch (pair[0].trim().toLowerCase(Locale.ROOT)) {
+                case "latency" -> faults.withLatency(duration(value), faults.jitter());
+                case "jitter" -> faults.withLatency(faults.latency(), duration(value));
+                case "bandwidth" -> faults.withBandwidth(bytes(value));
+                case "reset" -> faults.withResets(Double.parseDouble(value));
+                case "error" -> faults.withErrors(Double.parseDouble(value), faults.errorStatus());
+                case "status" -> faults.withErrors(faults.errorRate(), Integer.parseInt(value));
+                default -> throw new IllegalArgumentException("Unknown fault: " + pair[0]);
+            };
+        }
+        return faults;
+    }
+
+    boolean resets(long request) {
+        return hit(resetRate, request);
+    }
+
+    boolean fails(long request) {
+        return hit(errorRate, request);
+    }
+
+    long delayNanos() {
+        long delay = latency.toNanos();
+        long spread = jitter.toNanos();
+        return spread > 0 ? delay + ThreadLocalRandom.current().nextLong(spread + 1) : delay;
+    }
+
+    // Запрос n попадает в долю rate, если на нём целая часть n * rate увеличивается
+    private static boolean hit(double rate, long request) {
+        return rate > 0 && Math.floor((request + 1) * rate) > Math.floor(request * rate);
+    }
+
+    private static Duration duration(String value) {
+        String lower = value.toLowerCase(Locale.ROOT);
+        if (lower.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(lower.substring(0, lower.length() - 2)));
+        }
+        if (lower.endsWith("s")) {
+            return Duration.ofMillis((long) (Double.parseDouble(lower.substring(0, lower.length() - 1)) * 1_000));
+        }
+        return Duration.parse(value);
+    }
+
+    private static long bytes(String value) {
+        String lower = value.toLowerCase(Locale.ROOT);
+        char unit = lower.charAt(lower.length() - 1);
+        long multiplier = unit == 'k' ? 1024 : unit == 'm' ? 1024 * 1024 : 1;
+        return (long) (Double.parseDouble(multiplier == 1 ? lower : lower.substring(0, lower.length() - 1)) * multiplier);
+    }
+}
@@ -0,0 +1,315 @@
+package org.example;
+
+import io.qameta.allure.Step;
+import io.restassured.response.Response;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Пул заранее созданных постов и комментариев для тестов, которым они нужны как предусловие.
+ * <ul>
+ *     <li>borrow — фикстура не уничтожается и после {@link Fixture#close()} возвращается в пул;</li>
+ *     <li>take — фикстура расходуется: её удаляет сам тест; замена создаётся в фоне, пока
+ *     запас владельца меньше -Dfixtures.reserve (по умолчанию -Dthreads, иначе 1), так что следующий
+ *     тест берёт готовую фикстуру; 0 — без замен, пустой запас пополняется прямо в потоке теста.</li>
+ * </ul>
+ * Всё, что пул создал или принял через adopt, удаляется одной пачкой в {@link #cleanup()}
+ * после остановки фоновых замен, так что опоздавшие замены тоже удаляются.
+ * Пул заполняется одной параллельной пачкой при первой выдаче (-Dfixtures.posts и -Dfixtures.comments,
+ * по умолчанию по reserve), поэтому прогон без тестов, которым нужны фикстуры, ничего не создаёт.
+ * Фикстуры разложены по владельцам: поток получает посты и комментарии пользователя,
+ * которого арендовал в {@link UserPool}; пользователи берутся из пула по требованию.
+ * У каждого владельца комментарии висят на отдельном служебном посте, который тестам не выдаётся.
+ */
+public final class FixturePool {
+
+    private static final FixturePool SHARED = new FixturePool();
+    private static final JsonFields ID = JsonFields.of("id");
+    private static final int THREADS = Integer.getInteger("fixtures.threads", 4);
+    private static final int RESERVE = Integer.getInteger("fixtures.reserve", Integer.getInteger("threads", 1));
+    private static final int POSTS = Integer.getInteger("fixtures.posts", Math.max(RESERVE, 1));
+    private static final int COMMENTS = Integer.getInteger("fixtures.comments", Math.max(RESERVE, 1));
+
+    private final Map<UserPool.User, Stock> stocks = new ConcurrentHashMap<>();
+    private final Map<String, UserPool.User> ownedPosts = new ConcurrentHashMap<>();
+    private final Map<String, UserPool.User> ownedComments = new ConcurrentHashMap<>();
+    // null — пул ещё не заполнялся или уже очищен; пересоздаётся при следующем provision
+    private ExecutorService background;
+    private volatile boolean provisioned;
+
+    public static FixturePool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Раскладывает postCount постов и commentCount комментариев поровну между пользователями пула
+     * (или создаёт их от общего аккаунта, если пул пуст).
+     */
+    @Step("Provision {postCount} posts and {commentCount} comments")
+    public synchronized void provision(int postCount, int commentCount) {
+        List<UserPool.User> owners = UserPool.shared().ready();
+        if (owners.isEmpty()) {
+            owners = List.of(UserPool.shared().current());
+        }
+        List<CompletableFuture<Void>> batch = new ArrayList<>();
+        for (int i = 0; i < postCount; i++) {
+            Stock stock = stock(owners.get(i % owners.size()));
+            batch.add(CompletableFuture.runAsync(() -> stock.posts.add(createPost(stock)), background()));
+        }
+        for (int i = 0; i < commentCount; i++) {
+            Stock stock = stock(owners.get(i % owners.size()));
+            batch.add(CompletableFuture.runAsync(() -> stock.comments.add(createComment(stock)), background()));
+        }
+        CompletableFuture.allOf(batch.toArray(CompletableFuture[]::new)).join();
+        provisioned = true;
+    }
+
+    public Fixture borrowPost() {
+        ensureProvisioned();
+        Stock stock = stock(UserPool.shared().current());
+        return new Fixture(next(stock, true), stock.posts);
+    }
+
+    public Fixture borrowComment() {
+        ensureProvisioned();
+        Stock stock = stock(UserPool.shared().current());
+        return new Fixture(next(stock, false), stock.comments);
+    }
+
+    public String takePost() {
+        ensureProvisioned();
+        Stock stock = stock(UserPool.shared().current());
+        String id = next(stock, true);
+        ownedPosts.remove(id);
+        replenish(stock, true);
+        return id;
+    }
+
+    public String takeComment() {
+        ensureProvisioned();
+        Stock stock = stock(UserPool.shared().current());
+        String id = next(stock, false);
+        ownedComments.remove(id);
+        replenish(stock, false);
+        return id;
+    }
+
+    /**
+     * Принимает созданный тестом пост в пул: его можно выдавать другим тестам того же пользователя,
+     * и он будет удалён в конце.
+     */
+    public void adoptPost(String id) {
+        UserPool.User owner = UserPool.shared().current();
+        if (id != null && ownedPosts.putIfAbsent(id, owner) == null) {
+            stock(owner).posts.add(id);
+        }
+    }
+
+    public void adoptComment(String id) {
+        UserPool.User owner = UserPool.shared().current();
+        if (id != null && ownedComments.putIfAbsent(id, owner) == null) {
+            stock(owner).comments.add(id);
+        }
+    }
+
+    @Step("Delete pooled fixtures")
+    public void cleanup() {
+        ExecutorService replenishing;
+        synchronized (this) {
+            replenishing = background;
+            background = null;
+        }
+        // Сначала дожидаемся фоновых замен, иначе они создадут фикстуры уже после удаления
+        if (replenishing != null) {
+            replenishing.shutdown();
+            try {
+                if (!replenishing.awaitTermination(1, TimeUnit.MINUTES)) {
+                    replenishing.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                replenishing.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        try (ExecutorService deleting = newExecutor()) {
+            List<CompletableFuture<Void>> batch = new ArrayList<>();
+            ownedComments.forEach((id, owner) ->
+                    batch.add(CompletableFuture.runAsync(() -> delete(owner, Endpoint.DELETE_COMMENT, id), deleting)));
+            CompletableFuture.allOf(batch.toArray(CompletableFuture[]::new)).join();
+            batch.clear();
+            ownedPosts.forEach((id, owner) ->
+                    batch.add(CompletableFuture.runAsync(() -> delete(owner, Endpoint.DELETE_POST, id), deleting)));
+            CompletableFuture.allOf(batch.toArray(CompletableFuture[]::new)).join();
+        }
+        stocks.clear();
+        ownedPosts.clear();
+        ownedComments.clear();
+        provisioned = false;
+    }
+
+    private void ensureProvisioned() {
+        if (!provisioned) {
+            synchronized (this) {
+                if (!provisioned) {
+                    provision(POSTS, COMMENTS);
+                }
+            }
+        }
+    }
+
+    private synchronized ExecutorService background() {
+        if (background == null) {
+            background = newExecutor();
+        }
+        return background;
+    }
+
+    // Замена в фоне, только пока запас с учётом уже создаваемых замен меньше RESERVE
+    private void replenish(Stock stock, boolean post) {
+        BlockingQueue<String> queue = post ? stock.posts : stock.comments;
+        AtomicInteger pending = post ? stock.pendingPosts : stock.pendingComments;
+        ExecutorService executor;
+        synchronized (this) {
+            executor = background;
+        }
+        if (executor == null) {
+            return;
+        }
+        if (queue.size() + pending.incrementAndGet() > RESERVE) {
+            pending.decrementAndGet();
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    queue.add(post ? createPost(stock) : createComment(stock));
+                } finally {
+                    pending.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // cleanup уже остановил замены
+            pending.decrementAndGet();
+        }
+    }
+
+    private static ExecutorService newExecutor() {
+        return Executors.newFixedThreadPool(THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "fixture-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private Stock stock(UserPool.User owner) {
+        return stocks.computeIfAbsent(owner, Stock::new);
+    }
+
+    // Если фоновая замена ещё не готова, создаём фикстуру сразу в потоке теста
+    private String next(Stock stock, boolean post) {
+        String id = (post ? stock.posts : stock.comments).poll();
+        return id != null ? id : post ? createPost(stock) : createComment(stock);
+    }
+
+    private String createPost(Stock stock) {
+        Response response = ApiSpecs.authorized(stock.owner.testData(), Endpoint.CREATE_POST)
+                .multiPart("title", "Title")
+                .multiPart("text", "text")
+                .multiPart(UploadFixtures.image("sc.png"))
+                .multiPart("tags", "tag1")
+                .multiPart("tags", "tag2")
+                .when()
+                .post();
+        String id = created(response, "post");
+        ownedPosts.put(id, stock.owner);
+        return id;
+    }
+
+    private String createComment(Stock stock) {
+        JSONObject requestBody = new JSONObject();
+        requestBody.put("postId", commentHost(stock));
+        requestBody.put("text", "comment");
+        Response response = ApiSpecs.authorized(stock.owner.testData(), Endpoint.CREATE_COMMENT)
+                .body(requestBody.toString())
+                .when()
+                .post();
+        String id = created(response, "comment");
+        ownedComments.put(id, stock.owner);
+        return id;
+    }
+
+    private String commentHost(Stock stock) {
+        String host = stock.commentHost;
+        if (host == null) {
+            synchronized (stock) {
+                if (stock.commentHost == null) {
+                    stock.commentHost = createPost(stock);
+                }
+                host = stock.commentHost;
+            }
+        }
+        return host;
+    }
+
+    private void delete(UserPool.User owner, Endpoint endpoint, String id) {
+        ApiSpecs.authorized(owner.testData(), endpoint, id)
+                .when()
+                .delete();
+    }
+
+    private static String created(Response response, String kind) {
+        if (response.statusCode() != 201) {
+            throw new IllegalStateException("Cannot create " + kind + " fixture: " + response.statusCode() + " " + response.asString());
+        }
+        return ID.read(response).get("id");
+    }
+
+    /**
+     * Взятая во временное пользование фикстура; close() возвращает её в пул.
+     */
+    public static final class Fixture implements AutoCloseable {
+
+        private final String id;
+        private final BlockingQueue<String> stock;
+
+        private Fixture(String id, BlockingQueue<String> stock) {
+            this.id = id;
+            this.stock = stock;
+        }
+
+        public String id() {
+            return id;
+        }
+
+        @Override
+        public void close() {
+            stock.add(id);
+        }
+    }
+
+    private static final class Stock {
+
+        private final UserPool.User owner;
+        private final BlockingQueue<String> posts = new LinkedBlockingQueue<>();
+        private final BlockingQueue<String> comments = new LinkedBlockingQueue<>();
+        private final AtomicInteger pendingPosts = new AtomicInteger();
+        private final AtomicInteger pendingComments = new AtomicInteger();
+        private volatile String commentHost;
+
+        private Stock(UserPool.User owner) {
+            this.owner = owner;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.example;
+
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+
+/**
+ * Удаляет все фикстуры {@link FixturePool} после сьюта. Заполняется пул сам при первой выдаче.
+ */
+public class FixturePoolListener implements ISuiteListener {
+
+    @Override
+    public void onFinish(ISuite suite) {
+        FixturePool.shared().cleanup();
+    }
+}
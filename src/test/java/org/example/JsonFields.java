@@ -0,0 +1,324 @@
+package org.example;
+
+import io.restassured.response.Response;
+import org.testng.asserts.SoftAssert;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Извлечение заранее известных полей из JSON-ответа за один проход по байтам тела.
+ * Пути ("id", "user.id") компилируются один раз в дерево ключей; при разборе строки создаются
+ * только для запрошенных значений, остальное пропускается без аллокаций. Экземпляр неизменяем
+ * и разделяется потоками, результат кладётся в переиспользуемый {@link Values}.
+ * <p>
+ * Значения возвращаются как у jsonPath().getString(): строки без кавычек, числа и boolean
+ * текстом литерала, null — null; для объектов и массивов — исходный JSON.
+ */
+public final class JsonFields {
+
+    private final String[] paths;
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final Node root = new Node();
+    private final ThreadLocal<Values> scratch;
+
+    private JsonFields(String... paths) {
+        this.paths = paths.clone();
+        for (int i = 0; i < paths.length; i++) {
+            if (indexes.putIfAbsent(paths[i], i) != null) {
+                throw new IllegalArgumentException("Duplicate path: " + paths[i]);
+            }
+            Node node = root;
+            for (String key : paths[i].split("\\.")) {
+                node = node.child(key);
+            }
+            node.index = i;
+        }
+        scratch = ThreadLocal.withInitial(this::newValues);
+    }
+
+    public static JsonFields of(String... paths) {
+        return new JsonFields(paths);
+    }
+
+    public Values newValues() {
+        return new Values(this);
+    }
+
+    public Values read(Response response) {
+        return read(response.asByteArray(), newValues());
+    }
+
+    public Values read(byte[] json, Values into) {
+        if (into.fields != this) {
+            throw new IllegalArgumentException("Values belong to another JsonFields");
+        }
+        into.clear();
+        new Scanner(json, into.values).value(root);
+        return into;
+    }
+
+    public Expectations expect() {
+        return new Expectations(this);
+    }
+
+    private int indexOf(String path) {
+        Integer index = indexes.get(path);
+        if (index == null) {
+            throw new IllegalArgumentException("Path " + path + " is not compiled into " + String.join(", ", paths));
+        }
+        return index;
+    }
+
+    /**
+     * Извлечённые значения; можно переиспользовать между ответами.
+     */
+    public static final class Values {
+
+        private final JsonFields fields;
+        private final String[] values;
+
+        private Values(JsonFields fields) {
+            this.fields = fields;
+            this.values = new String[fields.paths.length];
+        }
+
+        public String get(String path) {
+            return values[fields.indexOf(path)];
+        }
+
+        private void clear() {
+            Arrays.fill(values, null);
+        }
+    }
+
+    /**
+     * Набор ожиданий к полям ответа; проверяется одним разбором тела.
+     */
+    public static final class Expectations {
+
+        private final JsonFields fields;
+        private final List<Check> checks = new ArrayList<>();
+
+        private Expectations(JsonFields fields) {
+            this.fields = fields;
+        }
+
+        public Expectations equal(String path, String expected, String message) {
+            checks.add(new Check(fields.indexOf(path), true, expected, message));
+            return this;
+        }
+
+        public Expectations notNull(String path, String message) {
+            checks.add(new Check(fields.indexOf(path), false, null, message));
+            return this;
+        }
+
+        /**
+         * Разбирает тело один раз и складывает результаты в softAssert. Возвращённые значения
+         * лежат в буфере потока и действительны до следующего verify в этом потоке.
+         */
+        public Values verify(Response response, SoftAssert softAssert) {
+            Values values = fields.read(response.asByteArray(), fields.scratch.get());
+            for (Check check : checks) {
+                String actual = values.values[check.index()];
+                if (check.equality()) {
+                    softAssert.assertEquals(actual, check.expected(), check.message());
+                } else {
+                    softAssert.assertNotNull(actual, check.message());
+                }
+            }
+            return values;
+        }
+
+        private record Check(int index, boolean equality, String expected, String message) {
+        }
+    }
+
+    private static final class Node {
+        private byte[][] keys = new byte[0][];
+        private Node[] children = new Node[0];
+        private int index = -1;
+
+        Node child(String key) {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < keys.length; i++) {
+                if (Arrays.equals(keys[i], bytes)) {
+                    return children[i];
+                }
+            }
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = bytes;
+            children[children.length - 1] = new Node();
+            return children[children.length - 1];
+        }
+
+        boolean hasChildren() {
+            return keys.length > 0;
+        }
+    }
+
+    private static final class Scanner {
+        private final byte[] json;
+        private final String[] out;
+        private int pos;
+
+        Scanner(byte[] json, String[] out) {
+            this.json = json;
+            this.out = out;
+        }
+
+        // node == null: значение никому не нужно, только пропустить
+        void value(Node node) {
+            skipWhitespace();
+            if (pos >= json.length) {
+                return;
+            }
+            int start = pos;
+            byte first = json[pos];
+            if (first == '{') {
+                object(node);
+            } else if (first == '[') {
+                array();
+            } else if (first == '"') {
+                int end = skipString();
+                if (node != null && node.index >= 0) {
+                    out[node.index] = decode(start + 1, end - 1);
+                }
+                return;
+            } else {
+                while (pos < json.length && !isDelimiter(json[pos])) {
+                    pos++;
+                }
+                if (node != null && node.index >= 0) {
+                    String literal = new String(json, start, pos - start, StandardCharsets.UTF_8);
+                    out[node.index] = literal.equals("null") ? null : literal;
+                }
+                return;
+            }
+            if (node != null && node.index >= 0) {
+                out[node.index] = new String(json, start, pos - start, StandardCharsets.UTF_8);
+            }
+        }
+
+        private void object(Node node) {
+            pos++;
+            while (true) {
+                skipWhitespace();
+                if (pos >= json.length || json[pos] == '}') {
+                    pos++;
+                    return;
+                }
+                if (json[pos] == ',') {
+                    pos++;
+                    continue;
+                }
+                int keyStart = pos + 1;
+                int keyEnd = skipString() - 1;
+                Node child = node != null && node.hasChildren() ? match(node, keyStart, keyEnd) : null;
+                skipWhitespace();
+                pos++; // ':'
+                value(child);
+            }
+        }
+
+        private void array() {
+            pos++;
+            while (true) {
+                skipWhitespace();
+                if (pos >= json.length || json[pos] == ']') {
+                    pos++;
+                    return;
+                }
+                if (json[pos] == ',') {
+                    pos++;
+                    continue;
+                }
+                value(null);
+            }
+        }
+
+        private Node match(Node node, int from, int to) {
+            int length = to - from;
+            for (int i = 0; i < node.keys.length; i++) {
+                byte[] key = node.keys[i];
+                if (key.length == length && Arrays.equals(key, 0, length, json, from, to)) {
+                    return node.children[i];
+                }
+            }
+            return null;
+        }
+
+        // Возвращает позицию сразу за закрывающей кавычкой
+        private int skipString() {
+            pos++;
+            while (pos < json.length) {
+                byte b = json[pos++];
+                if (b == '\\') {
+                    pos++;
+                } else if (b == '"') {
+                    return pos;
+                }
+            }
+            return pos;
+        }
+
+        private String decode(int from, int to) {
+            int backslash = -1;
+            for (int i = from; i < to; i++) {
+                if (json[i] == '\\') {
+                    backslash = i;
+                    break;
+                }
+            }
+            if (backslash < 0) {
+                return new String(json, from, to - from, StandardCharsets.UTF_8);
+            }
+            StringBuilder text = new StringBuilder(to - from);
+            text.append(new String(json, from, backslash - from, StandardCharsets.UTF_8));
+            int i = backslash;
+            while (i < to) {
+                byte b = json[i];
+                if (b != '\\') {
+                    int runEnd = i;
+                    while (runEnd < to && json[runEnd] != '\\') {
+                        runEnd++;
+                    }
+                    text.append(new String(json, i, runEnd - i, StandardCharsets.UTF_8));
+                    i = runEnd;
+                    continue;
+                }
+                byte escaped = json[i + 1];
+                switch (escaped) {
+                    case 'n' -> text.append('\n');
+                    case 't' -> text.append('\t');
+                    case 'r' -> text.append('\r');
+                    case 'b' -> text.append('\b');
+                    case 'f' -> text.append('\f');
+                    case 'u' -> {
+                        text.append((char) Integer.parseInt(new String(json, i + 2, 4, StandardCharsets.US_ASCII), 16));
+                        i += 4;
+                    }
+                    default -> text.append((char) escaped);
+                }
+                i += 2;
+            }
+            return text.toString();
+        }
+
+        private void skipWhitespace() {
+            while (pos < json.length && (json[pos] == ' ' || json[pos] == '\n' || json[pos] == '\r' || json[pos] == '\t')) {
+                pos++;
+            }
+        }
+
+        private static boolean isDelimiter(byte b) {
+            return b == ',' || b == '}' || b == ']' || b == ' ' || b == '\n' || b == '\r' || b == '\t';
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.example;
+
+import io.qameta.allure.Description;
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+
+@Epic("Инфраструктура тестов")
+public class JsonFieldsTests {
+
+    private static final JsonFields FIELDS = JsonFields.of("id", "title", "user.id", "user", "count", "missing");
+
+    @Test
+    @Feature("Разбор JSON-ответа")
+    @Description("Запрошенные поля извлекаются за один проход, остальные пропускаются.")
+    public void givenNestedBody_whenRead_thenOnlyRequestedFieldsExtracted() {
+        String body = "{\"tags\":[\"a\",{\"id\":\"inner\"}],\"id\":\"42\",\"title\":\"Ti\\\"tle \\u0416\","
+                + "\"user\":{\"name\":\"x\",\"id\":7},\"count\":3.5,\"flag\":true,\"missing\":null}";
+
+        JsonFields.Values values = FIELDS.read(body.getBytes(StandardCharsets.UTF_8), FIELDS.newValues());
+
+        Assert.assertEquals(values.get("id"), "42");
+        Assert.assertEquals(values.get("title"), "Ti\"tle Ж");
+        Assert.assertEquals(values.get("user.id"), "7");
+        Assert.assertEquals(values.get("user"), "{\"name\":\"x\",\"id\":7}");
+        Assert.assertEquals(values.get("count"), "3.5");
+        Assert.assertNull(values.get("missing"));
+    }
+
+    @Test
+    @Feature("Разбор JSON-ответа")
+    @Description("Переиспользуемый буфер значений очищается между ответами.")
+    public void givenReusedValues_whenReadTwice_thenPreviousValuesCleared() {
+        JsonFields.Values values = FIELDS.newValues();
+        FIELDS.read("{\"id\":\"1\",\"title\":\"first\"}".getBytes(StandardCharsets.UTF_8), values);
+        FIELDS.read("{ \"id\" : \"2\" }".getBytes(StandardCharsets.UTF_8), values);
+
+        Assert.assertEquals(values.get("id"), "2");
+        Assert.assertNull(values.get("title"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    @Feature("Разбор JSON-ответа")
+    @Description("Запрос поля, не скомпилированного в набор путей, — ошибка.")
+    public void givenUnknownPath_whenGet_thenRejected() {
+        FIELDS.newValues().get("text");
+    }
+}
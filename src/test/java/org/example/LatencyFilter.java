@@ -0,0 +1,40 @@
+package org.example;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Фильтр RestAssured, записывающий задержку каждого запроса в {@link LatencyRecorder}
+ * под эндпоинтом из каталога {@link Endpoint}, а не под конкретным id.
+ * Повторы {@link RetryFilter} входят в задержку исходного запроса и отдельно не пишутся.
+ */
+public class LatencyFilter implements Filter {
+
+    private final LatencyRecorder recorder;
+
+    public LatencyFilter(LatencyRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification request,
+                           FilterableResponseSpecification response,
+                           FilterContext context) {
+        if (RetryFilter.retrying()) {
+            return context.next(request, response);
+        }
+        long start = System.nanoTime();
+        int statusCode = -1;
+        try {
+            Response result = context.next(request, response);
+            statusCode = result.statusCode();
+            return result;
+        } finally {
+            recorder.record(request.getMethod(), Endpoint.match(request.getMethod(), request.getDerivedPath()),
+                    System.nanoTime() - start, statusCode);
+        }
+    }
+}
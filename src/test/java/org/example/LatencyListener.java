@@ -0,0 +1,26 @@
+package org.example;
+
+import io.restassured.RestAssured;
+import org.testng.IExecutionListener;
+import org.testng.IReporter;
+import org.testng.ISuite;
+import org.testng.xml.XmlSuite;
+
+import java.util.List;
+
+/**
+ * Подключает {@link LatencyFilter} ко всем запросам прогона, а в конце пишет перцентили по эндпоинтам
+ * в target/latency-report.txt и прикладывает их к отчёту Allure, см. {@link RunReport}.
+ */
+public class LatencyListener implements IExecutionListener, IReporter {
+
+    @Override
+    public void onExecutionStart() {
+        RestAssured.filters(new LatencyFilter(LatencyRecorder.shared()));
+    }
+
+    @Override
+    public void generateReport(List<XmlSuite> xmlSuites, List<ISuite> suites, String outputDirectory) {
+        RunReport.publish("Latency", "latency-report.txt", LatencyRecorder.shared().report());
+    }
+}
@@ -0,0 +1,149 @@
+package org.example;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Задержки запросов по эндпоинтам из {@link Endpoint} в HdrHistogram (мкс, 3 значащие цифры);
+ * запросы мимо каталога копятся по методу под шаблоном "unmatched".
+ * Запись идёт через {@link Recorder}: без блокировок и без аллокаций на образец.
+ * При подаче с фиксированной частотой запросы итерации отсчитываются от её запланированного старта
+ * ({@link #beginIteration(long)}): опоздание запуска, в том числе ожидание свободного пользователя
+ * в {@link LoadRunner}, входит в задержку каждого запроса итерации, а не теряется (coordinated omission).
+ */
+public class LatencyRecorder {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    static final String UNMATCHED = "unmatched";
+
+    private static final Endpoint[] ENDPOINTS = Endpoint.values();
+    private static final LatencyRecorder SHARED = new LatencyRecorder();
+
+    private volatile AtomicReferenceArray<Series> series = new AtomicReferenceArray<>(ENDPOINTS.length);
+    private final Map<String, Series> unmatched = new ConcurrentHashMap<>();
+    // Опоздание запуска текущей итерации относительно расписания, нс
+    private final ThreadLocal<Long> lag = new ThreadLocal<>();
+
+    public static LatencyRecorder shared() {
+        return SHARED;
+    }
+
+    /**
+     * Запросы текущего потока до {@link #endIteration()} считаются от intendedStart (System.nanoTime()),
+     * а не от фактической отправки.
+     */
+    public void beginIteration(long intendedStart) {
+        lag.set(Math.max(System.nanoTime() - intendedStart, 0));
+    }
+
+    public void endIteration() {
+        lag.remove();
+    }
+
+    /**
+     * @param endpoint эндпоинт из {@link Endpoint#match}, null — запрос мимо каталога
+     */
+    public void record(String method, Endpoint endpoint, long nanos, int statusCode) {
+        Series target = endpoint != null ? series(endpoint) : unmatched.computeIfAbsent(method, key -> new Series());
+        Long late = lag.get();
+        long total = late != null ? nanos + late : nanos;
+        target.recorder.recordValue(Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(total), 1), HIGHEST_TRACKABLE_MICROS));
+        target.requests.increment();
+        if (statusCode < 0 || statusCode >= 400) {
+            target.errors.increment();
+        }
+    }
+
+    public long requests() {
+        return snapshot().stream().mapToLong(EndpointLatency::requests).sum();
+    }
+
+    public long errors() {
+        return snapshot().stream().mapToLong(EndpointLatency::errors).sum();
+    }
+
+    /**
+     * Накопленные гистограммы по эндпоинтам, отсортированные по шаблону и методу.
+     */
+    public List<EndpointLatency> snapshot() {
+        List<EndpointLatency> snapshot = new ArrayList<>();
+        AtomicReferenceArray<Series> current = series;
+        for (Endpoint endpoint : ENDPOINTS) {
+            Series recorded = current.get(endpoint.ordinal());
+            if (recorded != null) {
+                snapshot.add(recorded.latency(endpoint, endpoint.method(), endpoint.template()));
+            }
+        }
+        unmatched.forEach((method, recorded) -> snapshot.add(recorded.latency(null, method, UNMATCHED)));
+        snapshot.sort(Comparator.comparing(EndpointLatency::template).thenComparing(EndpointLatency::method));
+        return snapshot;
+    }
+
+    public String report() {
+        StringBuilder report = new StringBuilder(String.format("%-28s %8s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (EndpointLatency latency : snapshot()) {
+            Histogram histogram = latency.histogram();
+            report.append(String.format("%-28s %8d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    latency.method() + " " + latency.template(), latency.requests(), latency.errors(),
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue())));
+        }
+        return report.toString();
+    }
+
+    public void reset() {
+        series = new AtomicReferenceArray<>(ENDPOINTS.length);
+        unmatched.clear();
+    }
+
+    private Series series(Endpoint endpoint) {
+        AtomicReferenceArray<Series> current = series;
+        Series existing = current.get(endpoint.ordinal());
+        if (existing == null) {
+            current.compareAndSet(endpoint.ordinal(), null, new Series());
+            existing = current.get(endpoint.ordinal());
+        }
+        return existing;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1_000.0;
+    }
+
+    /**
+     * requests — реально отправленные запросы, по одному значению histogram на каждый.
+     * endpoint == null для запросов мимо каталога.
+     */
+    public record EndpointLatency(Endpoint endpoint, String method, String template, Histogram histogram, long requests, long errors) {
+    }
+
+    private static final class Series {
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private final Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        // Забираем интервал у Recorder и копим в total; копию отдаём наружу
+        synchronized Histogram total() {
+            total.add(recorder.getIntervalHistogram());
+            return total.copy();
+        }
+
+        EndpointLatency latency(Endpoint endpoint, String method, String template) {
+            return new EndpointLatency(endpoint, method, template, total(), requests.sum(), errors.sum());
+        }
+    }
+}
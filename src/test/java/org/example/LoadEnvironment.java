@@ -0,0 +1,98 @@
+package org.example;
+
+import io.restassured.RestAssured;
+
+import java.io.IOException;
+
+/**
+ * Общий запуск {@link LoadRunner} и {@link SoakRunner}:
+ * <ul>
+ *     <li>-Dapi.stub=true — {@link NewsApiStub} вместо живого API;</li>
+ *     <li>-Dfaults=... — {@link FaultProxy} перед адресом API, правила включаются в {@link #provision(int)},
+ *     после подготовки пользователей;</li>
+ *     <li>{@link LatencyFilter} всегда, {@link MetricsFilter} — если включён {@link MetricsExporter}.</li>
+ * </ul>
+ * Адрес API подменяется до первого запроса: ApiSpecs запоминает его один раз.
+ * close() останавливает всё поднятое в обратном порядке.
+ */
+public final class LoadEnvironment implements AutoCloseable {
+
+    private final String faults = System.getProperty(FaultProxy.PROPERTY, "");
+    private NewsApiStub stub;
+    private FaultProxy proxy;
+    private MetricsExporter metrics;
+
+    private LoadEnvironment() {
+    }
+
+    public static LoadEnvironment start() throws IOException {
+        LoadEnvironment environment = new LoadEnvironment();
+        try {
+            environment.startServers();
+        } catch (IOException | RuntimeException e) {
+            environment.close();
+            throw e;
+        }
+        return environment;
+    }
+
+    /**
+     * Заглушка, на которой идёт прогон, или null для живого API.
+     */
+    public NewsApiStub stub() {
+        return stub;
+    }
+
+    /**
+     * Готовит users пользователей {@link UserPool} без сбоев и затем включает правила -Dfaults.
+     */
+    public void provision(int users) {
+        UserPool.shared().provision(users, UserPool.defaultFile());
+        if (proxy != null) {
+            proxy.rules(faults);
+            System.out.println("Faults: " + faults + ", retries: " + ApiSpecs.retries().policy());
+        }
+    }
+
+    /**
+     * Итог прокси со сбоями и повторов клиента; пустая строка без -Dfaults.
+     */
+    public String faultSummary() {
+        return proxy == null ? "" : "Fault proxy: " + proxy.stats() + ", client retries: " + ApiSpecs.retries().retries()
+                + ", exhausted: " + ApiSpecs.retries().exhausted();
+    }
+
+    @Override
+    public void close() {
+        if (proxy != null) {
+            proxy.close();
+        }
+        if (metrics != null) {
+            metrics.close();
+        }
+        if (stub != null) {
+            stub.close();
+        }
+    }
+
+    private void startServers() throws IOException {
+        if (Boolean.getBoolean("api.stub")) {
+            stub = new NewsApiStub(Integer.getInteger("api.stub.port", 0)).start();
+            stub.registerUser(TestContext.DEFAULT_EMAIL, TestContext.DEFAULT_PASSWORD);
+            System.setProperty(Endpoint.BASE_URL_PROPERTY, stub.baseUrl());
+        }
+        if (!faults.isBlank()) {
+            proxy = new FaultProxy(Endpoint.baseUrl()).start();
+            System.setProperty(Endpoint.BASE_URL_PROPERTY, proxy.baseUrl());
+        }
+        RestAssured.filters(new LatencyFilter(LatencyRecorder.shared()));
+        metrics = MetricsExporter.fromSystemProperties(MetricsRegistry.shared());
+        if (metrics != null) {
+            RestAssured.filters(new MetricsFilter(MetricsRegistry.shared()));
+            // Со сводкой (-Dmetrics.reportSeconds) адрес уже вывел сам экспортёр
+            if (metrics.url() != null && Long.getLong(MetricsExporter.REPORT_PROPERTY, 0) <= 0) {
+                System.out.println("Metrics: " + metrics.url());
+            }
+        }
+    }
+}
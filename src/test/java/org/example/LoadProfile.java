@@ -0,0 +1,44 @@
+package org.example;
+
+import java.time.Duration;
+
+/**
+ * Режим подачи нагрузки.
+ * <ul>
+ *     <li>rate &gt; 0 — открытая модель: rate итераций в секунду, не больше users одновременно;</li>
+ *     <li>rate = 0 — закрытая модель: users пользователей в цикле, запускаемых равномерно за rampUp.</li>
+ * </ul>
+ */
+public record LoadProfile(int users, double rate, Duration rampUp, Duration duration) {
+
+    public LoadProfile {
+        if (users <= 0) {
+            throw new IllegalArgumentException("users must be positive");
+        }
+        if (rate < 0) {
+            throw new IllegalArgumentException("rate must not be negative");
+        }
+    }
+
+    public boolean constantRate() {
+        return rate > 0;
+    }
+
+    /**
+     * -Dload.users=10 -Dload.rate=0 -Dload.rampUp=PT10S -Dload.duration=PT1M
+     */
+    public static LoadProfile fromSystemProperties() {
+        return new LoadProfile(
+                Integer.getInteger("load.users", 10),
+                Double.parseDouble(System.getProperty("load.rate", "0")),
+                Duration.parse(System.getProperty("load.rampUp", "PT0S")),
+                Duration.parse(System.getProperty("load.duration", "PT30S")));
+    }
+
+    @Override
+    public String toString() {
+        return constantRate()
+                ? String.format("constant rate %.1f/s, max %d in flight, %s", rate, users, duration)
+                : String.format("%d users, ramp-up %s, %s", users, rampUp, duration);
+    }
+}
@@ -0,0 +1,175 @@
+package org.example;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Генератор нагрузки на виртуальных потоках поверх {@link LoadScenarios}.
+ * Запуск: mvn -Pload test-compile exec:java -Dload.users=20 -Dload.duration=PT1M [-Dapi.stub=true]
+ * [-Dmetrics.port=9400] [-Dmetrics.reportSeconds=10] — живые метрики во время прогона, см. {@link MetricsExporter}
+ * [-Dfaults=...] — нагрузка через {@link FaultProxy}, правила включаются после подготовки пользователей,
+ * см. {@link LoadEnvironment};
+ * [-Dhttp.retry.attempts=3] — повторы идемпотентных запросов, см. {@link RetryPolicy}. Влияние повторов
+ * на хвост задержки и пропускную способность — сравнение двух прогонов с одинаковыми -Dfaults.
+ */
+public class LoadRunner {
+
+    private final List<LoadScenario> scenarios;
+    private final int[] cumulativeWeights;
+    private final LoadProfile profile;
+    private final LatencyRecorder latency = LatencyRecorder.shared();
+    private final LongAdder iterations = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+
+    public LoadRunner(List<LoadScenario> scenarios, LoadProfile profile) {
+        if (scenarios.isEmpty()) {
+            throw new IllegalArgumentException("At least one scenario is required");
+        }
+        this.scenarios = List.copyOf(scenarios);
+        this.profile = profile;
+        this.cumulativeWeights = new int[scenarios.size()];
+        int total = 0;
+        for (int i = 0; i < scenarios.size(); i++) {
+            total += scenarios.get(i).weight();
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        try (LoadEnvironment environment = LoadEnvironment.start()) {
+            LoadProfile profile = LoadProfile.fromSystemProperties();
+            environment.provision(profile.users());
+            System.out.println("Load against " + Endpoint.baseUrl() + ": " + profile);
+            System.out.println(new LoadRunner(LoadScenarios.defaults(), profile).run().report());
+            String faults = environment.faultSummary();
+            if (!faults.isEmpty()) {
+                System.out.println(faults);
+            }
+        }
+    }
+
+    public Result run() throws InterruptedException {
+        ApiSpecs.ensureCapacity(profile.users());
+        latency.reset();
+        long start = System.nanoTime();
+        long deadline = start + profile.duration().toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (profile.constantRate()) {
+                runConstantRate(executor, start, deadline);
+            } else {
+                runClosed(executor, start, deadline);
+            }
+        }
+        return new Result(Duration.ofNanos(System.nanoTime() - start),
+                iterations.sum(), failures.sum(), queued.sum(), latency);
+    }
+
+    // Закрытая модель: каждый пользователь крутит сценарии до дедлайна, старты размазаны по rampUp
+    private void runClosed(ExecutorService executor, long start, long deadline) {
+        long rampUp = profile.rampUp().toNanos();
+        for (int user = 0; user < profile.users(); user++) {
+            long startAt = start + rampUp * user / profile.users();
+            executor.submit(() -> {
+                sleepUntil(startAt);
+                LoadSession session = newSession();
+                try {
+                    while (System.nanoTime() < deadline) {
+                        iterate(session);
+                    }
+                } finally {
+                    UserPool.shared().release();
+                }
+            });
+        }
+    }
+
+    // Открытая модель: запуски по расписанию независимо от ответов. Сверх users в полёте итерация ждёт
+    // свободного пользователя, а её запросы считаются от запланированного старта — ожидание входит в задержку
+    // (без coordinated omission). Все запланированные до дедлайна итерации выполняются, поэтому
+    // при перегрузке прогон длится дольше duration
+    private void runConstantRate(ExecutorService executor, long start, long deadline) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(profile.users());
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / profile.rate());
+        for (long next = start; next < deadline; next += interval) {
+            sleepUntil(next);
+            if (!inFlight.tryAcquire()) {
+                queued.increment();
+                inFlight.acquire();
+            }
+            long intendedStart = next;
+            executor.submit(() -> {
+                latency.beginIteration(intendedStart);
+                try {
+                    iterate(newSession());
+                } finally {
+                    latency.endIteration();
+                    UserPool.shared().release();
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    private void iterate(LoadSession session) {
+        LoadScenario scenario = pick();
+        try {
+            scenario.flow().run(session);
+        } catch (Exception e) {
+            failures.increment();
+        } finally {
+            iterations.increment();
+        }
+    }
+
+    private LoadScenario pick() {
+        int ticket = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (ticket < cumulativeWeights[i]) {
+                return scenarios.get(i);
+            }
+        }
+        return scenarios.get(scenarios.size() - 1);
+    }
+
+    // Каждый виртуальный пользователь под своим аккаунтом из UserPool (или общим, если пул не заполнен)
+    private LoadSession newSession() {
+        return new LoadSession(UserPool.shared().lease());
+    }
+
+    private static void sleepUntil(long nanoTime) {
+        long delay = nanoTime - System.nanoTime();
+        if (delay > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * В режиме постоянной частоты задержки считаются от запланированного старта итерации.
+     * queued — итерации, ждавшие свободного пользователя; их ожидание входит в перцентили.
+     */
+    public record Result(Duration elapsed, long iterations, long failures, long queued, LatencyRecorder latency) {
+
+        public double throughput() {
+            return latency.requests() / (elapsed.toNanos() / 1e9);
+        }
+
+        public String report() {
+            return String.format("iterations: %d, failed: %d, queued: %d, requests: %d, errors: %d, throughput: %.1f req/s in %s%n",
+                    iterations, failures, queued, latency.requests(), latency.errors(), throughput(), elapsed)
+                    + latency.report()
+                    + (queued > 0 ? String.format("queued %d of %d iterations (%.1f%%) waiting for a free user, the wait is in percentiles%n",
+                    queued, iterations, 100.0 * queued / iterations) : "");
+        }
+    }
+}
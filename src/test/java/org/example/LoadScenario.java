@@ -0,0 +1,18 @@
+package org.example;
+
+/**
+ * Взвешенный сценарий нагрузки: один проход пользовательского потока (логин, пост, комментарий...).
+ */
+public record LoadScenario(String name, int weight, Flow flow) {
+
+    public LoadScenario {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Scenario weight must be positive: " + name);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Flow {
+        void run(LoadSession session);
+    }
+}
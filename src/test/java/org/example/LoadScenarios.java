@@ -0,0 +1,77 @@
+package org.example;
+
+import io.restassured.specification.RequestSpecification;
+import org.json.JSONObject;
+
+import java.util.List;
+
+/**
+ * Сценарии нагрузки, повторяющие запросы из {@link AuthTests}. Созданные посты и комментарии
+ * удаляются в том же проходе, чтобы длинный прогон не копил данные на сервере.
+ */
+public final class LoadScenarios {
+
+    private static final JsonFields ID = JsonFields.of("id");
+
+    private LoadScenarios() {
+    }
+
+    public static List<LoadScenario> defaults() {
+        return List.of(
+                new LoadScenario("login", 2, LoadScenarios::login),
+                new LoadScenario("whoami", 3, LoadScenarios::whoAmI),
+                new LoadScenario("post-with-comment", 1, LoadScenarios::postWithComment));
+    }
+
+    static void login(LoadSession session) {
+        TestData testData = session.testData();
+        session.call(200, () -> ApiSpecs.api(Endpoint.LOGIN)
+                .body("{\"email\":\"" + testData.testUserEmail + "\",\"password\":\"" + testData.testUserPassword + "\"}")
+                .when()
+                .post());
+    }
+
+    static void whoAmI(LoadSession session) {
+        session.call(200, () -> authorized(session, Endpoint.WHO_AM_I)
+                .when()
+                .get());
+    }
+
+    static void postWithComment(LoadSession session) {
+        TestData testData = session.testData();
+
+        testData.postId = ID.read(session.call(201, () -> authorized(session, Endpoint.CREATE_POST)
+                .multiPart("title", "Title")
+                .multiPart("text", "text")
+                .multiPart(UploadFixtures.image("sc.png"))
+                .multiPart("tags", "tag1")
+                .multiPart("tags", "tag2")
+                .when()
+                .post())).get("id");
+        try {
+            JSONObject comment = new JSONObject();
+            comment.put("postId", testData.postId);
+            comment.put("text", "comment");
+            testData.commentId = ID.read(session.call(201, () -> authorized(session, Endpoint.CREATE_COMMENT)
+                    .body(comment.toString())
+                    .when()
+                    .post())).get("id");
+
+            session.call(200, () -> authorized(session, Endpoint.UPDATE_COMMENT, testData.commentId)
+                    .body("{\"text\":\"Updated\"}")
+                    .when()
+                    .patch());
+            session.call(200, () -> authorized(session, Endpoint.DELETE_COMMENT, testData.commentId)
+                    .when()
+                    .delete());
+        } finally {
+            session.call(200, () -> authorized(session, Endpoint.DELETE_POST, testData.postId)
+                    .when()
+                    .delete());
+        }
+    }
+
+    private static RequestSpecification authorized(LoadSession session, Endpoint endpoint, String... pathParameters) {
+        return ApiSpecs.authorized(session.testData(), endpoint, pathParameters);
+    }
+}
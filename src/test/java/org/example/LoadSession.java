@@ -0,0 +1,30 @@
+package org.example;
+
+import io.restassured.response.Response;
+
+import java.util.function.Supplier;
+
+/**
+ * Состояние одного виртуального пользователя. Задержки снимает {@link LatencyFilter}, здесь только проверка статуса.
+ */
+public class LoadSession {
+
+    private final TestData testData;
+
+    LoadSession(TestData testData) {
+        this.testData = testData;
+    }
+
+    public TestData testData() {
+        return testData;
+    }
+
+    public Response call(int expectedStatus, Supplier<Response> request) {
+        Response response = request.get();
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException("Expected " + expectedStatus + " but got " + response.statusCode()
+                    + ": " + response.asString());
+        }
+        return response;
+    }
+}
@@ -0,0 +1,59 @@
+package org.example;
+
+import org.testng.IExecutionListener;
+import org.testng.IReporter;
+import org.testng.ISuite;
+import org.testng.xml.XmlSuite;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * При -Dapi.stub=true поднимает {@link NewsApiStub} до создания тестовых классов
+ * и направляет на него {@link Endpoint#baseUrl()} через свойство api.baseUrl.
+ * При -Dfaults=... ставит перед получившимся адресом {@link FaultProxy} с этими правилами;
+ * оба шага в одном слушателе, потому что TestNG не гарантирует порядок слушателей.
+ * Итог прокси и повторов клиента — в target/fault-proxy-report.txt и в Allure, см. {@link RunReport}.
+ */
+public class LocalStubListener implements IExecutionListener, IReporter {
+
+    private NewsApiStub stub;
+    private FaultProxy proxy;
+
+    @Override
+    public void onExecutionStart() {
+        try {
+            if (Boolean.getBoolean("api.stub")) {
+                stub = new NewsApiStub(Integer.getInteger("api.stub.port", 0)).start();
+                stub.registerUser(TestContext.DEFAULT_EMAIL, TestContext.DEFAULT_PASSWORD);
+                System.setProperty(Endpoint.BASE_URL_PROPERTY, stub.baseUrl());
+            }
+            String faults = System.getProperty(FaultProxy.PROPERTY, "");
+            if (!faults.isBlank()) {
+                proxy = new FaultProxy(Endpoint.baseUrl()).rules(faults).start();
+                System.setProperty(Endpoint.BASE_URL_PROPERTY, proxy.baseUrl());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start local API stub or fault proxy", e);
+        }
+    }
+
+    @Override
+    public void generateReport(List<XmlSuite> xmlSuites, List<ISuite> suites, String outputDirectory) {
+        if (proxy != null) {
+            RunReport.publish("Fault proxy", "fault-proxy-report.txt", "Fault proxy: " + proxy.stats()
+                    + ", client retries: " + ApiSpecs.retries().retries() + ", exhausted: " + ApiSpecs.retries().exhausted() + "\n");
+        }
+    }
+
+    @Override
+    public void onExecutionFinish() {
+        if (proxy != null) {
+            proxy.close();
+        }
+        if (stub != null) {
+            stub.close();
+        }
+    }
+}
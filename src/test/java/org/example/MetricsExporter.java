@@ -0,0 +1,204 @@
+package org.example;
+
+import com.sun.net.httpserver.HttpServer;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отдаёт {@link MetricsRegistry} наружу во время прогона:
+ * <ul>
+ *     <li>-Dmetrics.port=N — http://127.0.0.1:N/metrics в текстовом формате Prometheus (0 — свободный порт);</li>
+ *     <li>-Dmetrics.reportSeconds=N — каждые N секунд одна строка сводки в stdout.</li>
+ * </ul>
+ * Адрес /metrics выводится в stdout только вместе со сводкой (-Dmetrics.reportSeconds), иначе его видно
+ * в {@link #url()} и в итоговом отчёте прогона.
+ * Задержки — summary с квантилями за окно registry и накопленными _sum/_count.
+ */
+public final class MetricsExporter implements AutoCloseable {
+
+    static final String PORT_PROPERTY = "metrics.port";
+    static final String REPORT_PROPERTY = "metrics.reportSeconds";
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private final MetricsRegistry registry;
+    private HttpServer server;
+    private ScheduledExecutorService reporter;
+    private long lastRequests;
+    private long lastReportNanos;
+
+    public MetricsExporter(MetricsRegistry registry) {
+        this.registry = registry;
+        this.lastReportNanos = System.nanoTime();
+    }
+
+    /**
+     * Экспортёр по системным свойствам или null, если ни порт, ни период сводки не заданы.
+     */
+    public static MetricsExporter fromSystemProperties(MetricsRegistry registry) {
+        Integer port = Integer.getInteger(PORT_PROPERTY);
+        long reportSeconds = Long.getLong(REPORT_PROPERTY, 0);
+        if (port == null && reportSeconds <= 0) {
+            return null;
+        }
+        MetricsExporter exporter = new MetricsExporter(registry);
+        if (port != null) {
+            exporter.serve(port);
+        }
+        if (reportSeconds > 0) {
+            exporter.report(reportSeconds);
+        }
+        return exporter;
+    }
+
+    public MetricsExporter serve(int port) {
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot bind metrics port " + port, e);
+        }
+        server.createContext("/metrics", exchange -> {
+            byte[] body = prometheus().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return this;
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Адрес /metrics или null, если экспортёр не слушает порт.
+     */
+    public String url() {
+        return server != null ? "http://127.0.0.1:" + port() + "/metrics" : null;
+    }
+
+    public MetricsExporter report(long periodSeconds) {
+        if (server != null) {
+            System.out.println("Metrics: " + url());
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> System.out.println(summary()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        return this;
+    }
+
+    public String prometheus() {
+        List<MetricsRegistry.EndpointMetrics> snapshot = registry.snapshot();
+        StringBuilder out = new StringBuilder(4_096);
+        header(out, "api_requests_total", "counter", "Responses by endpoint and status code; status=\"none\" means no response.");
+        for (MetricsRegistry.EndpointMetrics metrics : snapshot) {
+            for (Map.Entry<Integer, Long> status : metrics.statuses().entrySet()) {
+                sample(out, "api_requests_total", metrics, "status", status.getKey() < 0 ? "none" : status.getKey().toString(), status.getValue());
+            }
+        }
+        header(out, "api_request_errors_total", "counter", "Responses with status 400 and above plus requests without a response.");
+        snapshot.forEach(metrics -> sample(out, "api_request_errors_total", metrics, null, null, metrics.errors()));
+        header(out, "api_requests_in_flight", "gauge", "Requests sent and not yet answered.");
+        snapshot.forEach(metrics -> sample(out, "api_requests_in_flight", metrics, null, null, metrics.inFlight()));
+        header(out, "api_request_bytes_total", "counter", "Request body bytes sent, multipart parts included.");
+        snapshot.forEach(metrics -> sample(out, "api_request_bytes_total", metrics, null, null, metrics.sentBytes()));
+        header(out, "api_response_bytes_total", "counter", "Response body bytes received.");
+        snapshot.forEach(metrics -> sample(out, "api_response_bytes_total", metrics, null, null, metrics.receivedBytes()));
+        header(out, "api_request_duration_seconds", "summary",
+                "Request latency; quantiles over the last " + registry.windowSeconds() + " s.");
+        for (MetricsRegistry.EndpointMetrics metrics : snapshot) {
+            Histogram window = metrics.window();
+            for (double quantile : QUANTILES) {
+                double seconds = window.getTotalCount() == 0 ? Double.NaN : window.getValueAtPercentile(quantile * 100) / 1e6;
+                sample(out, "api_request_duration_seconds", metrics, "quantile", Double.toString(quantile), seconds);
+            }
+            sample(out, "api_request_duration_seconds_sum", metrics, null, null, metrics.totalNanos() / 1e9);
+            sample(out, "api_request_duration_seconds_count", metrics, null, null, metrics.requests());
+        }
+        return out.toString();
+    }
+
+    /**
+     * Одна строка: запросы и темп с прошлой сводки, ошибки, в полёте, трафик и p99 за окно по всем эндпоинтам.
+     */
+    public synchronized String summary() {
+        List<MetricsRegistry.EndpointMetrics> snapshot = registry.snapshot();
+        long requests = 0;
+        long errors = 0;
+        long inFlight = 0;
+        long sent = 0;
+        long received = 0;
+        Histogram window = new Histogram(3);
+        for (MetricsRegistry.EndpointMetrics metrics : snapshot) {
+            requests += metrics.requests();
+            errors += metrics.errors();
+            inFlight += metrics.inFlight();
+            sent += metrics.sentBytes();
+            received += metrics.receivedBytes();
+            window.add(metrics.window());
+        }
+        long now = System.nanoTime();
+        double rate = (requests - lastRequests) / Math.max((now - lastReportNanos) / 1e9, 1e-3);
+        lastRequests = requests;
+        lastReportNanos = now;
+        return String.format(Locale.ROOT, "metrics: %d requests (%.1f/s), %d errors, %d in flight, sent %s, received %s, p99 %.1f ms over %d s",
+                requests, rate, errors, inFlight, megabytes(sent), megabytes(received),
+                window.getValueAtPercentile(99) / 1_000.0, registry.windowSeconds());
+    }
+
+    @Override
+    public void close() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+        }
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, MetricsRegistry.EndpointMetrics metrics,
+                               String label, String value, double sample) {
+        out.append(name).append("{method=\"").append(metrics.method())
+                .append("\",endpoint=\"").append(metrics.template()).append('"');
+        if (label != null) {
+            out.append(',').append(label).append("=\"").append(value).append('"');
+        }
+        out.append("} ");
+        if (Double.isNaN(sample)) {
+            out.append("NaN");
+        } else if (sample == Math.rint(sample) && Math.abs(sample) < 1e15) {
+            out.append((long) sample);
+        } else {
+            out.append(sample);
+        }
+        out.append('\n');
+    }
+
+    private static String megabytes(long bytes) {
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,49 @@
+package org.example;
+
+import io.qameta.allure.Description;
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+@Epic("Инфраструктура тестов")
+public class MetricsExporterTests {
+
+    @Test
+    @Feature("Живые метрики")
+    @Description("Счётчики по статусам, запросы в полёте, байты и квантили окна отдаются в формате Prometheus.")
+    public void givenRecordedRequests_whenScraped_thenPrometheusTextReturned() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry(60);
+        registry.started("POST", Endpoint.CREATE_POST, 10_000);
+        registry.finished("POST", Endpoint.CREATE_POST, TimeUnit.MILLISECONDS.toNanos(20), 201, 300);
+        registry.started("POST", Endpoint.CREATE_POST, 10_000);
+        registry.finished("POST", Endpoint.CREATE_POST, TimeUnit.MILLISECONDS.toNanos(40), 400, 50);
+        registry.started("GET", Endpoint.WHO_AM_I, 0);
+        SoftAssert softAssert = new SoftAssert();
+
+        String body;
+        try (MetricsExporter exporter = new MetricsExporter(registry).serve(0)) {
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + exporter.port() + "/metrics")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            softAssert.assertEquals(response.statusCode(), 200, "Status code 200");
+            body = response.body();
+            softAssert.assertTrue(exporter.summary().startsWith("metrics: 2 requests"), exporter.summary());
+        }
+
+        softAssert.assertTrue(body.contains("api_requests_total{method=\"POST\",endpoint=\"/posts\",status=\"201\"} 1\n"), body);
+        softAssert.assertTrue(body.contains("api_request_errors_total{method=\"POST\",endpoint=\"/posts\"} 1\n"), body);
+        softAssert.assertTrue(body.contains("api_requests_in_flight{method=\"GET\",endpoint=\"/auth/whoami\"} 1\n"), body);
+        softAssert.assertTrue(body.contains("api_request_bytes_total{method=\"POST\",endpoint=\"/posts\"} 20000\n"), body);
+        softAssert.assertTrue(body.contains("api_response_bytes_total{method=\"POST\",endpoint=\"/posts\"} 350\n"), body);
+        softAssert.assertTrue(body.contains("api_request_duration_seconds_count{method=\"POST\",endpoint=\"/posts\"} 2\n"), body);
+        softAssert.assertTrue(body.contains("api_request_duration_seconds{method=\"POST\",endpoint=\"/posts\",quantile=\"0.99\"} 0.04"), body);
+        softAssert.assertAll();
+    }
+}
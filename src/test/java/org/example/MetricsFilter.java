@@ -0,0 +1,79 @@
+package org.example;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import io.restassured.specification.MultiPartSpecification;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Фильтр RestAssured, который кормит {@link MetricsRegistry}: запрос в полёте, размер тела
+ * запроса и ответа, статус и время под эндпоинтом из каталога {@link Endpoint}.
+ * Отправленные байты — размер тела по спецификации (части multipart целиком; из потоков — только
+ * {@link UploadFixtures#generated} с известной длиной, остальные не считаются),
+ * без заголовков и разделителей multipart; полученные — тело ответа, которое ApiSpecs всё равно дочитывает.
+ * Повторы {@link RetryFilter} входят во время исходного запроса и отдельно не считаются.
+ */
+public class MetricsFilter implements Filter {
+
+    private final MetricsRegistry registry;
+
+    public MetricsFilter(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification request,
+                           FilterableResponseSpecification response,
+                           FilterContext context) {
+        if (RetryFilter.retrying()) {
+            return context.next(request, response);
+        }
+        String method = request.getMethod();
+        Endpoint endpoint = Endpoint.match(method, request.getDerivedPath());
+        registry.started(method, endpoint, requestBytes(request));
+        long start = System.nanoTime();
+        int statusCode = -1;
+        long received = 0;
+        try {
+            Response result = context.next(request, response);
+            statusCode = result.statusCode();
+            received = result.asByteArray().length;
+            return result;
+        } finally {
+            registry.finished(method, endpoint, System.nanoTime() - start, statusCode, received);
+        }
+    }
+
+    static long requestBytes(FilterableRequestSpecification request) {
+        long bytes = size(request.getBody());
+        for (MultiPartSpecification part : request.getMultiPartParams()) {
+            bytes += size(part.getContent());
+        }
+        return bytes;
+    }
+
+    private static long size(Object content) {
+        if (content == null) {
+            return 0;
+        }
+        if (content instanceof byte[] bytes) {
+            return bytes.length;
+        }
+        if (content instanceof File file) {
+            return file.length();
+        }
+        if (content instanceof UploadFixtures.GeneratedImageStream stream) {
+            return stream.length();
+        }
+        if (content instanceof InputStream) {
+            return 0;
+        }
+        return content.toString().getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -0,0 +1,43 @@
+package org.example;
+
+import io.restassured.RestAssured;
+import org.testng.IExecutionListener;
+import org.testng.IReporter;
+import org.testng.ISuite;
+import org.testng.xml.XmlSuite;
+
+import java.util.List;
+
+/**
+ * При -Dmetrics.port или -Dmetrics.reportSeconds подключает {@link MetricsFilter} ко всем запросам
+ * прогона и запускает {@link MetricsExporter}; итог пишется в target/metrics-report.txt и в Allure,
+ * см. {@link RunReport}. Без этих свойств ничего не делает.
+ */
+public class MetricsListener implements IExecutionListener, IReporter {
+
+    private MetricsExporter exporter;
+
+    @Override
+    public void onExecutionStart() {
+        exporter = MetricsExporter.fromSystemProperties(MetricsRegistry.shared());
+        if (exporter != null) {
+            RestAssured.filters(new MetricsFilter(MetricsRegistry.shared()));
+        }
+    }
+
+    @Override
+    public void generateReport(List<XmlSuite> xmlSuites, List<ISuite> suites, String outputDirectory) {
+        if (exporter != null) {
+            String url = exporter.url();
+            RunReport.publish("Metrics", "metrics-report.txt",
+                    (url != null ? "Metrics: " + url + "\n" : "") + exporter.summary() + "\n");
+        }
+    }
+
+    @Override
+    public void onExecutionFinish() {
+        if (exporter != null) {
+            exporter.close();
+        }
+    }
+}
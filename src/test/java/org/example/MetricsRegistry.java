@@ -0,0 +1,157 @@
+package org.example;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Живые метрики запросов по эндпоинтам {@link Endpoint}: число запросов по статусам, ошибки,
+ * запросы в полёте, отправленные и полученные байты и задержка за скользящее окно.
+ * Пишет {@link MetricsFilter}, читают {@link MetricsExporter} (Prometheus и строка в консоль).
+ * <p>
+ * Счётчики — LongAdder, задержки — HdrHistogram {@link Recorder} (мкс, 3 значащие цифры),
+ * поэтому запись не блокирует потоки запросов. Окно сдвигается при чтении: интервал, снятый
+ * с Recorder, кладётся в корзину с временем снятия, корзины старше окна выбрасываются.
+ */
+public final class MetricsRegistry {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final Endpoint[] ENDPOINTS = Endpoint.values();
+    private static final MetricsRegistry SHARED = new MetricsRegistry(Long.getLong("metrics.windowSeconds", 60));
+
+    private final long windowNanos;
+    private final AtomicReferenceArray<Series> series = new AtomicReferenceArray<>(ENDPOINTS.length);
+    private final Map<String, Series> unmatched = new ConcurrentHashMap<>();
+
+    public MetricsRegistry(long windowSeconds) {
+        this.windowNanos = TimeUnit.SECONDS.toNanos(windowSeconds);
+    }
+
+    public static MetricsRegistry shared() {
+        return SHARED;
+    }
+
+    public long windowSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(windowNanos);
+    }
+
+    /**
+     * @param endpoint эндпоинт из {@link Endpoint#match}, null — запрос мимо каталога
+     */
+    public void started(String method, Endpoint endpoint, long sentBytes) {
+        Series target = series(method, endpoint);
+        target.inFlight.incrementAndGet();
+        target.sent.add(sentBytes);
+    }
+
+    /**
+     * @param statusCode -1 — ответа нет (таймаут, обрыв соединения)
+     */
+    public void finished(String method, Endpoint endpoint, long nanos, int statusCode, long receivedBytes) {
+        Series target = series(method, endpoint);
+        target.inFlight.decrementAndGet();
+        target.recorder.recordValue(Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 1), HIGHEST_TRACKABLE_MICROS));
+        target.nanos.add(nanos);
+        target.received.add(receivedBytes);
+        target.statuses.computeIfAbsent(statusCode, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Состояние по эндпоинтам, отсортированное по шаблону и методу; histogram — за последнее окно.
+     */
+    public List<EndpointMetrics> snapshot() {
+        long now = System.nanoTime();
+        List<EndpointMetrics> snapshot = new ArrayList<>();
+        for (Endpoint endpoint : ENDPOINTS) {
+            Series recorded = series.get(endpoint.ordinal());
+            if (recorded != null) {
+                snapshot.add(recorded.metrics(endpoint.method(), endpoint.template(), now, windowNanos));
+            }
+        }
+        unmatched.forEach((method, recorded) -> snapshot.add(recorded.metrics(method, LatencyRecorder.UNMATCHED, now, windowNanos)));
+        snapshot.sort(Comparator.comparing(EndpointMetrics::template).thenComparing(EndpointMetrics::method));
+        return snapshot;
+    }
+
+    private Series series(String method, Endpoint endpoint) {
+        if (endpoint == null) {
+            return unmatched.computeIfAbsent(method, key -> new Series());
+        }
+        Series existing = series.get(endpoint.ordinal());
+        if (existing == null) {
+            series.compareAndSet(endpoint.ordinal(), null, new Series());
+            existing = series.get(endpoint.ordinal());
+        }
+        return existing;
+    }
+
+    /**
+     * statuses — число ответов по коду, -1 — запросы без ответа; errors — коды от 400 и запросы без ответа.
+     */
+    public record EndpointMetrics(String method, String template, Map<Integer, Long> statuses, int inFlight,
+                                  long sentBytes, long receivedBytes, long totalNanos, Histogram window) {
+
+        public long requests() {
+            return statuses.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        public long errors() {
+            return statuses.entrySet().stream()
+                    .filter(entry -> entry.getKey() < 0 || entry.getKey() >= 400)
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+        }
+    }
+
+    private static final class Series {
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder received = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final Deque<Bucket> buckets = new ArrayDeque<>();
+        private Histogram spare;
+
+        synchronized Histogram window(long now, long windowNanos) {
+            Histogram interval = recorder.getIntervalHistogram(spare);
+            spare = null;
+            if (interval.getTotalCount() > 0) {
+                buckets.addLast(new Bucket(now, interval));
+            } else {
+                spare = interval;
+            }
+            while (!buckets.isEmpty() && now - buckets.peekFirst().takenAt() > windowNanos) {
+                spare = buckets.removeFirst().histogram();
+            }
+            Histogram window = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+            for (Bucket bucket : buckets) {
+                window.add(bucket.histogram());
+            }
+            return window;
+        }
+
+        EndpointMetrics metrics(String method, String template, long now, long windowNanos) {
+            Map<Integer, Long> counts = new TreeMap<>();
+            statuses.forEach((status, count) -> counts.put(status, count.sum()));
+            return new EndpointMetrics(method, template, counts, inFlight.get(), sent.sum(), received.sum(),
+                    nanos.sum(), window(now, windowNanos));
+        }
+    }
+
+    private record Bucket(long takenAt, Histogram histogram) {
+    }
+}
@@ -1,222 +1,74 @@
 package org.example;
 
-import io.qameta.allure.Step;
-import io.restassured.specification.RequestSpecification;
 import io.restassured.response.Response;
+import io.qameta.allure.Allure;
 import io.qameta.allure.Description;
 import io.qameta.allure.Epic;
 import io.qameta.allure.Feature;
-import io.restassured.RestAssured;
-import org.json.JSONObject;
-import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import org.testng.asserts.SoftAssert;
 
-import java.io.File;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Epic("Негативное тестирование")
 public class NegativeAuthTests {
 
-    private EndPoints endPoints;
-    private TestData testData;
+    private static final String NEGATIVE_CASES = "scenarios/negative.jsonl";
 
+    // Пользователь арендуется только там, где нужен токен: случаи без authorized идут без аренды
     @BeforeMethod
-    public void setup() {
-        endPoints = new EndPoints();
-        testData = new TestData();
-        testData.testUserEmail = "5test.user@example.com";
-        testData.testUserPassword = "password123";
-        loginUser();
+    public void setup(Object[] parameters) {
+        if (parameters.length == 0 || parameters[0] instanceof RequestPlan plan && plan.authorized()) {
+            TestContext.start();
+        }
     }
 
-    @Test
-    @Feature("Авторизация пользователя")
-    @Description("Проверка авторизации с некорректными учетными данными.")
-    public void givenIncorrectCredentials_whenLogin_thenUnauthorized() {
-        SoftAssert softAssert = new SoftAssert();
-        String Email = "t.email@example.com";
-        String Pass = "pass";
-
-        Response response = RestAssured.given()
-                .baseUri(endPoints.baseUrl)
-                .basePath(endPoints.login)
-                .header("Content-Type", "application/json")
-                .body("{\"email\":\"" + Email + "\",\"password\":\"" + Pass + "\"}")
-                .when()
-                .post();
-
-        softAssert.assertEquals(response.statusCode(), 401, "Status code 401");
-        softAssert.assertAll();
-    }
-
-    @Test
-    @Feature("Получение информации о пользователе")
-    @Description("Проверка получения информации о пользователе без авторизации.")
-    public void givenNoAuthorization_whenGetUserInfo_thenUnauthorized() {
-        SoftAssert softAssert = new SoftAssert();
-
-        Response response = RestAssured.given()
-                .baseUri(endPoints.baseUrl)
-                .basePath(endPoints.whoAmI)
-                .when()
-                .get();
-
-        softAssert.assertEquals(response.statusCode(), 401, "Status code 401 ");
-        softAssert.assertAll();
-    }
-
-    @Test
-    @Feature("Обновление информации о пользователе")
-    @Description("Проверка обновления информации о пользователе с невалидным токеном.")
-    public void givenInvalidToken_whenUpdateUserInfo_thenUnauthorized() {
-        SoftAssert softAssert = new SoftAssert();
-        String news = "Updat";
-        String Token = "Token123";
-
-        Response response = RestAssured.given()
-                .baseUri(endPoints.baseUrl)
-                .basePath(endPoints.updateUser.replace("{id}", "validUserId"))
-                .header("Authorization", "Bearer " + Token)
-                .multiPart("firstName", news)
-                .when()
-                .patch();
-
-        softAssert.assertEquals(response.statusCode(), 401, "Status code 401");
-        softAssert.assertAll();
-    }
-
-    @Test
-    @Feature("Создание поста")
-    @Description("Проверка создания поста с отсутствующими обязательными полями.")
-    public void givenMissingFields_whenCreatePost_thenUnauthorized() {
-        String title = "Title";
-        String text = "text";
-        String filePath = "src/main/resources/sc.png";
-        File file = new File(filePath);
-        RequestSpecification request = RestAssured.given()
-                .baseUri(endPoints.baseUrl)
-                .basePath(endPoints.createPost)
-                .header("Authorization", "Bearer " + testData.accessToken)
-                .multiPart("title", title)
-                .multiPart("text", text)
-                .multiPart("file", file, "image/png");
-        Response response = request.when().post();
-        SoftAssert softAssert = new SoftAssert();
-        softAssert.assertEquals(response.statusCode(), 400, "Status code 400");
-        softAssert.assertAll();
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() {
+        TestContext.clear();
     }
 
-    @Test
-    @Feature("Обновление поста")
-    @Description("Проверка обновления поста с несуществующим идентификатором.")
-    public void givenNonExistentPostId_whenUpdatePost_thenUnauthorized() {
-        SoftAssert softAssert = new SoftAssert();
-        String Title = "Title";
-        String Text = "text";
-        String nonPost = "nonPost";
-
-        Response response = RestAssured.given()
-                .baseUri(endPoints.baseUrl)
-                .basePath("/posts/5")
-                .header("Authorization", "Bearer " + testData.accessToken)
-                .multiPart("title", Title)
-                .multiPart("text", Text)
-                .when()
-                .patch();
-
-        softAssert.assertEquals(response.statusCode(), 404, "Status code 404");
-        softAssert.assertAll();
+    // Параллельно случаи идут только в -Pparallel, см. ParallelSuiteListener
+    @DataProvider(name = "negativeCases")
+    public Object[][] negativeCases() {
+        return RequestPlan.load(NEGATIVE_CASES).stream()
+                .map(plan -> new Object[]{plan})
+                .toArray(Object[][]::new);
     }
 
-    @Test
-    @Feature("Удаление поста")
-    @Description("Проверка удаления поста с несуществующим идентификатором.")
-    public void givenNonExistentPostId_whenDeletePost_thenUnauthorized() {
+    @Test(dataProvider = "negativeCases")
+    @Description("Негативные случаи из scenarios/negative.jsonl: запрос отклоняется с ожидаемым статусом.")
+    public void givenInvalidRequest_whenSent_thenRejected(RequestPlan plan) {
+        Allure.feature(plan.feature());
+        Allure.getLifecycle().updateTestCase(result -> result.setName(plan.name()));
         SoftAssert softAssert = new SoftAssert();
-        String ExPost = "ExPost";
 
-        Response response = RestAssured.given()
-                .baseUri(endPoints.baseUrl)
-                .basePath("/posts/5")
-                .header("Authorization", "Bearer " + testData.accessToken)
-                .when()
-                .delete();
+        Response response = plan.execute(plan.authorized() ? TestContext.current() : null);
 
-        softAssert.assertEquals(response.statusCode(), 404, "Status code 404");
+        plan.verify(response, softAssert);
         softAssert.assertAll();
     }
 
     @Test
-    @Feature("Создание комментария")
-    @Description("Проверка создания комментария без идентификатора поста.")
-    public void givenMissingPostId_whenCreateComment_thenUnauthorized() {
+    @Feature("Параллельные негативные проверки")
+    @Description("Все негативные случаи из scenarios/negative.jsonl отправляются одновременно, проверки собираются в конце.")
+    public void givenInvalidRequests_whenSentConcurrently_thenAllRejected() {
+        TestData testData = TestContext.current();
+        AsyncApi async = AsyncApi.shared();
         SoftAssert softAssert = new SoftAssert();
-        String commen = "comment";
-        JSONObject requestBody = new JSONObject();
-        requestBody.put("text", commen);
+        List<RequestPlan> plans = RequestPlan.load(NEGATIVE_CASES);
 
-        Response response = RestAssured.given()
-                .baseUri(endPoints.baseUrl)
-                .basePath(endPoints.comment)
-                .header("Content-Type", "application/json")
-                .header("Authorization", "Bearer " + testData.accessToken)
-                .body(requestBody.toString())
-                .when()
-                .post();
+        List<CompletableFuture<Response>> responses = plans.stream()
+                .map(plan -> plan.submit(async, testData))
+                .toList();
 
-        softAssert.assertEquals(response.statusCode(), 400, "Status code 400");
+        for (int i = 0; i < plans.size(); i++) {
+            plans.get(i).verify(responses.get(i).join(), softAssert);
+        }
         softAssert.assertAll();
     }
-
-    @Test
-    @Feature("Обновление комментария")
-    @Description("Проверка обновления комментария с несуществующим идентификатором.")
-    public void givenNonExistentCommentId_whenUpdateComment_thenUnauthorized() {
-        SoftAssert softAssert = new SoftAssert();
-        String update = "Update";
-
-        Response response = RestAssured.given()
-                .baseUri(endPoints.baseUrl)
-                .basePath("/comments/5")
-                .header("Content-Type", "application/json")
-                .header("Authorization", "Bearer " + testData.accessToken)
-                .body("{\"text\":\"" + update + "\"}")
-                .when()
-                .patch();
-
-        softAssert.assertEquals(response.statusCode(), 404, "Status code 404");
-        softAssert.assertAll();
-    }
-
-    @Test
-    @Feature("Удаление комментария")
-    @Description("Проверка удаления комментария с несуществующим идентификатором.")
-    public void givenNonExistentCommentId_whenDeleteComment_thenUnauthorized() {
-        SoftAssert softAssert = new SoftAssert();
-        Response response = RestAssured.given()
-                .baseUri(endPoints.baseUrl)
-                .basePath("/comments/5" )
-                .header("Authorization", "Bearer " + testData.accessToken)
-                .when()
-                .delete();
-
-        softAssert.assertEquals(response.statusCode(), 404, "Status code 404");
-        softAssert.assertAll();
-    }
-
-    @Step("Login user and obtain access token")
-    private void loginUser() {
-        Response response = RestAssured.given()
-                .baseUri(endPoints.baseUrl)
-                .basePath(endPoints.login)
-                .header("Content-Type", "application/json")
-                .body("{\"email\":\"" + testData.testUserEmail + "\",\"password\":\"" + testData.testUserPassword + "\"}")
-                .when()
-                .post();
-
-        Assert.assertEquals(response.statusCode(), 200, "User login failed");
-        testData.accessToken = response.jsonPath().getString("accessToken");
-        testData.userId = response.jsonPath().getString("user.id");
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,462 @@
+package org.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Локальная заглушка news API: те же пути, что в {@link Endpoint}, хранение в памяти
+ * и те же коды ответов, что проверяют тесты. Запускается на loopback, см. {@link LocalStubListener}.
+ */
+public class NewsApiStub implements AutoCloseable {
+
+    private static final Duration TOKEN_TTL = Duration.ofHours(1);
+
+    static {
+        // HttpServer пишет заголовки и тело ответа отдельно; с Nagle и delayed ACK каждый
+        // ответ на loopback ждал ~40 мс. Читается один раз при первом создании сервера.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final Map<String, JSONObject> users = new ConcurrentHashMap<>();
+    private final Map<String, String> passwords = new ConcurrentHashMap<>();
+    private final Map<String, String> usersByEmail = new ConcurrentHashMap<>();
+    private final Map<String, String> tokens = new ConcurrentHashMap<>();
+    private final Map<String, JSONObject> posts = new ConcurrentHashMap<>();
+    private final Map<String, JSONObject> comments = new ConcurrentHashMap<>();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public NewsApiStub(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+    }
+
+    // Обработчик регистрируется здесь, а не в конструкторе: this не утекает из недостроенного объекта
+    public NewsApiStub start() {
+        server.createContext("/", this::handle);
+        server.start();
+        return this;
+    }
+
+    public String baseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    public JSONObject registerUser(String email, String password) {
+        String existing = usersByEmail.get(email);
+        if (existing != null) {
+            return users.get(existing);
+        }
+        String id = UUID.randomUUID().toString();
+        JSONObject user = new JSONObject()
+                .put("id", id)
+                .put("email", email)
+                .put("firstName", "")
+                .put("lastName", "");
+        users.put(id, user);
+        passwords.put(id, password);
+        String winner = usersByEmail.putIfAbsent(email, id);
+        if (winner != null) {
+            users.remove(id);
+            passwords.remove(id);
+            return users.get(winner);
+        }
+        return user;
+    }
+
+    public int userCount() {
+        return users.size();
+    }
+
+    public int postCount() {
+        return posts.size();
+    }
+
+    public int commentCount() {
+        return comments.size();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Reply reply;
+            try {
+                reply = route(exchange);
+            } catch (JSONException | IllegalArgumentException e) {
+                reply = error(400, e.getMessage());
+            }
+            send(exchange, reply);
+        }
+    }
+
+    private Reply route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] path = segments(exchange.getRequestURI().getPath());
+        String resource = path.length > 0 ? path[0] : "";
+        String id = path.length > 1 ? path[1] : null;
+
+        if (resource.equals("auth") && method.equals("POST") && "signup".equals(id)) {
+            return signup(json(exchange));
+        }
+        if (resource.equals("auth") && method.equals("POST") && "login".equals(id)) {
+            return login(json(exchange));
+        }
+
+        String userId = authenticate(exchange);
+        if (userId == null) {
+            return error(401, "Unauthorized");
+        }
+        switch (resource) {
+            case "auth":
+                if (method.equals("GET") && "whoami".equals(id)) {
+                    return Reply.of(200, users.get(userId));
+                }
+                break;
+            case "users":
+                if (id == null && method.equals("GET")) {
+                    return Reply.list(users.values());
+                }
+                if (id != null && method.equals("GET")) {
+                    return found(users.get(id));
+                }
+                if (id != null && method.equals("PATCH")) {
+                    return updateUser(userId, id, multipart(exchange));
+                }
+                break;
+            case "posts":
+                if (id == null && method.equals("GET")) {
+                    return Reply.list(posts.values());
+                }
+                if (id == null && method.equals("POST")) {
+                    return createPost(userId, multipart(exchange));
+                }
+                if (id != null && method.equals("PATCH")) {
+                    return updatePost(id, multipart(exchange));
+                }
+                if (id != null && method.equals("DELETE")) {
+                    return deletePost(id);
+                }
+                break;
+            case "comments":
+                if (id == null && method.equals("POST")) {
+                    return createComment(userId, json(exchange));
+                }
+                if (id != null && method.equals("PATCH")) {
+                    return updateComment(id, json(exchange));
+                }
+                if (id != null && method.equals("DELETE")) {
+                    return comments.remove(id) == null ? notFound() : Reply.of(200, new JSONObject().put("id", id));
+                }
+                break;
+            default:
+                break;
+        }
+        return notFound();
+    }
+
+    private Reply signup(JSONObject body) {
+        String email = body.optString("email", null);
+        String password = body.optString("password", null);
+        if (email == null || password == null) {
+            return error(400, "email and password are required");
+        }
+        if (usersByEmail.containsKey(email)) {
+            return error(409, "User already exists");
+        }
+        JSONObject user = registerUser(email, password);
+        user.put("firstName", body.optString("firstName", ""));
+        user.put("lastName", body.optString("lastName", ""));
+        return Reply.of(201, new JSONObject().put("accessToken", issueToken(user.getString("id"))).put("user", user));
+    }
+
+    private Reply login(JSONObject body) {
+        String id = usersByEmail.get(body.optString("email", ""));
+        if (id == null || !body.optString("password", "").equals(passwords.get(id))) {
+            return error(401, "Invalid credentials");
+        }
+        return Reply.of(200, new JSONObject().put("accessToken", issueToken(id)).put("user", users.get(id)));
+    }
+
+    private Reply updateUser(String userId, String id, Map<String, List<Part>> form) {
+        JSONObject user = users.get(id);
+        if (user == null) {
+            return notFound();
+        }
+        if (!id.equals(userId)) {
+            return error(403, "Forbidden");
+        }
+        synchronized (user) {
+            for (String field : new String[]{"firstName", "lastName", "email"}) {
+                if (form.containsKey(field)) {
+                    user.put(field, form.get(field).get(0).text());
+                }
+            }
+        }
+        return Reply.of(200, user);
+    }
+
+    private Reply createPost(String userId, Map<String, List<Part>> form) {
+        if (!form.containsKey("title") || !form.containsKey("text") || !form.containsKey("tags")) {
+            return error(400, "title, text and tags are required");
+        }
+        String id = UUID.randomUUID().toString();
+        JSONObject post = new JSONObject()
+                .put("id", id)
+                .put("user", new JSONObject().put("id", userId));
+        applyPost(post, form);
+        posts.put(id, post);
+        return Reply.of(201, post);
+    }
+
+    private Reply updatePost(String id, Map<String, List<Part>> form) {
+        JSONObject post = posts.get(id);
+        if (post == null) {
+            return notFound();
+        }
+        synchronized (post) {
+            applyPost(post, form);
+        }
+        return Reply.of(200, post);
+    }
+
+    private static void applyPost(JSONObject post, Map<String, List<Part>> form) {
+        if (form.containsKey("title")) {
+            post.put("title", form.get("title").get(0).text());
+        }
+        if (form.containsKey("text")) {
+            post.put("text", form.get("text").get(0).text());
+        }
+        if (form.containsKey("tags")) {
+            JSONArray tags = new JSONArray();
+            form.get("tags").forEach(part -> tags.put(part.text()));
+            post.put("tags", tags);
+        }
+        if (form.containsKey("file")) {
+            Part file = form.get("file").get(0);
+            post.put("image", new JSONObject().put("name", file.fileName()).put("size", file.data().length));
+        }
+    }
+
+    private Reply deletePost(String id) {
+        if (posts.remove(id) == null) {
+            return notFound();
+        }
+        comments.values().removeIf(comment -> id.equals(comment.optString("postId")));
+        return Reply.of(200, new JSONObject().put("id", id));
+    }
+
+    private Reply createComment(String userId, JSONObject body) {
+        String postId = body.optString("postId", null);
+        String text = body.optString("text", null);
+        if (postId == null || text == null) {
+            return error(400, "postId and text are required");
+        }
+        if (!posts.containsKey(postId)) {
+            return notFound();
+        }
+        String id = UUID.randomUUID().toString();
+        JSONObject comment = new JSONObject()
+                .put("id", id)
+                .put("postId", postId)
+                .put("text", text)
+                .put("user", new JSONObject().put("id", userId));
+        comments.put(id, comment);
+        return Reply.of(201, comment);
+    }
+
+    private Reply updateComment(String id, JSONObject body) {
+        JSONObject comment = comments.get(id);
+        if (comment == null) {
+            return notFound();
+        }
+        if (body.has("text")) {
+            synchronized (comment) {
+                comment.put("text", body.getString("text"));
+            }
+        }
+        return Reply.of(200, comment);
+    }
+
+    // Токен похож на JWT (header.payload.signature) с claim exp, чтобы TokenProvider видел срок жизни
+    private String issueToken(String userId) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString("{\"alg\":\"none\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+        JSONObject claims = new JSONObject()
+                .put("sub", userId)
+                .put("exp", Instant.now().plus(TOKEN_TTL).getEpochSecond())
+                .put("jti", UUID.randomUUID().toString());
+        String token = header + "." + encoder.encodeToString(claims.toString().getBytes(StandardCharsets.UTF_8)) + ".stub";
+        tokens.put(token, userId);
+        return token;
+    }
+
+    private String authenticate(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return null;
+        }
+        String token = authorization.substring("Bearer ".length());
+        String userId = tokens.get(token);
+        if (userId == null || TokenProvider.expiryOf(token).isBefore(Instant.now())) {
+            tokens.remove(token);
+            return null;
+        }
+        return userId;
+    }
+
+    private static String[] segments(String path) {
+        String trimmed = path.startsWith("/") ? path.substring(1) : path;
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("/");
+    }
+
+    private static JSONObject json(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            String text = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+            return text.isBlank() ? new JSONObject() : new JSONObject(text);
+        }
+    }
+
+    private static Map<String, List<Part>> multipart(HttpExchange exchange) throws IOException {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        int boundaryAt = contentType == null ? -1 : contentType.indexOf("boundary=");
+        if (boundaryAt < 0) {
+            throw new IllegalArgumentException("multipart/form-data expected");
+        }
+        String boundary = contentType.substring(boundaryAt + "boundary=".length()).split(";")[0].replace("\"", "");
+        try (InputStream body = exchange.getRequestBody()) {
+            return parseMultipart(body.readAllBytes(), ("--" + boundary).getBytes(StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    private static Map<String, List<Part>> parseMultipart(byte[] body, byte[] delimiter) {
+        Map<String, List<Part>> parts = new LinkedHashMap<>();
+        int start = indexOf(body, delimiter, 0);
+        while (start >= 0) {
+            int headersStart = start + delimiter.length;
+            if (headersStart + 1 < body.length && body[headersStart] == '-' && body[headersStart + 1] == '-') {
+                break;
+            }
+            headersStart += 2;
+            int headersEnd = indexOf(body, "\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1), headersStart);
+            int next = indexOf(body, delimiter, headersEnd);
+            if (headersEnd < 0 || next < 0) {
+                break;
+            }
+            String headers = new String(body, headersStart, headersEnd - headersStart, StandardCharsets.UTF_8);
+            byte[] data = new byte[Math.max(0, next - 2 - (headersEnd + 4))];
+            System.arraycopy(body, headersEnd + 4, data, 0, data.length);
+            String name = dispositionParameter(headers, "name");
+            if (name != null) {
+                parts.computeIfAbsent(name, key -> new ArrayList<>())
+                        .add(new Part(dispositionParameter(headers, "filename"), data));
+            }
+            start = next;
+        }
+        return parts;
+    }
+
+    private static String dispositionParameter(String headers, String parameter) {
+        String marker = " " + parameter + "=\"";
+        int at = headers.indexOf(marker);
+        if (at < 0) {
+            marker = ";" + parameter + "=\"";
+            at = headers.indexOf(marker);
+        }
+        if (at < 0) {
+            return null;
+        }
+        int from = at + marker.length();
+        return headers.substring(from, headers.indexOf('"', from));
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern, int from) {
+        outer:
+        for (int i = Math.max(from, 0); i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static Reply found(JSONObject entity) {
+        return entity == null ? notFound() : Reply.of(200, entity);
+    }
+
+    private static Reply notFound() {
+        return error(404, "Not Found");
+    }
+
+    private static Reply error(int status, String message) {
+        return new Reply(status, new JSONObject().put("statusCode", status).put("message", String.valueOf(message)).toString());
+    }
+
+    private static void send(HttpExchange exchange, Reply reply) throws IOException {
+        byte[] bytes = reply.body().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(reply.status(), bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Тело сериализуется сразу и под монитором сущности, чтобы не читать её во время PATCH
+    private record Reply(int status, String body) {
+
+        static Reply of(int status, JSONObject entity) {
+            synchronized (entity) {
+                return new Reply(status, entity.toString());
+            }
+        }
+
+        static Reply list(Collection<JSONObject> entities) {
+            StringJoiner body = new StringJoiner(",", "[", "]");
+            for (JSONObject entity : entities) {
+                synchronized (entity) {
+                    body.add(entity.toString());
+                }
+            }
+            return new Reply(200, body.toString());
+        }
+    }
+
+    private record Part(String fileName, byte[] data) {
+
+        String text() {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+    }
+}
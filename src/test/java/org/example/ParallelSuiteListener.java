@@ -0,0 +1,34 @@
+package org.example;
+
+import org.testng.IAlterSuiteListener;
+import org.testng.IAnnotationTransformer;
+import org.testng.annotations.IDataProviderAnnotation;
+import org.testng.xml.XmlSuite;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Позволяет переопределить thread-count из testng-parallel.xml через -Dthreads=N.
+ * Data provider'ы в коде последовательные; в параллельном сьюте их случаи тоже идут параллельно.
+ */
+public class ParallelSuiteListener implements IAlterSuiteListener, IAnnotationTransformer {
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        String threads = System.getProperty("threads");
+        if (threads == null || threads.isBlank()) {
+            return;
+        }
+        int threadCount = Integer.parseInt(threads.trim());
+        for (XmlSuite suite : suites) {
+            suite.setThreadCount(threadCount);
+            suite.setDataProviderThreadCount(threadCount);
+        }
+    }
+
+    @Override
+    public void transform(IDataProviderAnnotation annotation, Method method) {
+        annotation.setParallel(true);
+    }
+}
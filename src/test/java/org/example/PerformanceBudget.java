@@ -0,0 +1,39 @@
+package org.example;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Бюджет времени на тестовый метод: {@link PerformanceBudgetListener} прогоняет тело метода
+ * warmup + iterations раз и роняет тест, если перцентиль времени измеренных итераций больше millis.
+ * Например, логин p95 &lt; 300 мс на 50 итерациях:
+ * {@code @PerformanceBudget(iterations = 50, warmup = 5, percentile = 95, millis = 300)}.
+ * Проверяется только при -Dperf.budgets=true (профиль perf), иначе метод выполняется один раз.
+ * <p>
+ * Повторяется только тело метода, без @BeforeMethod/@AfterMethod, поэтому метод должен
+ * выдерживать повтор: созданное в нём отдавать в {@link FixturePool} через adopt, а не
+ * расходовать фикстуры через take.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface PerformanceBudget {
+
+    /**
+     * Измеряемые итерации.
+     */
+    int iterations() default 20;
+
+    /**
+     * Итерации прогрева перед измерением; их время не учитывается.
+     */
+    int warmup() default 3;
+
+    /**
+     * Проверяемый перцентиль, 100 — максимум.
+     */
+    double percentile() default 95;
+
+    long millis();
+}
@@ -0,0 +1,87 @@
+package org.example;
+
+import io.qameta.allure.Allure;
+import org.HdrHistogram.Histogram;
+import org.testng.IHookCallBack;
+import org.testng.IHookable;
+import org.testng.ITestResult;
+
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Исполняет {@link PerformanceBudget}: повторяет тело метода, копит время итераций в HdrHistogram
+ * (мкс, 3 значащие цифры) и прикладывает разбивку по перцентилям к отчёту Allure. Превышение
+ * бюджета — обычное падение теста с той же разбивкой в сообщении. Функциональное падение
+ * любой итерации прерывает повторы и остаётся результатом теста.
+ * Бюджеты включаются явно: -Dperf.budgets=true или профиль perf (mvn test -Pperf). По умолчанию
+ * обычный функциональный прогон выполняет каждый метод один раз и бюджеты не проверяет.
+ */
+public class PerformanceBudgetListener implements IHookable {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final double[] BREAKDOWN = {50, 90, 95, 99};
+
+    @Override
+    public void run(IHookCallBack callBack, ITestResult testResult) {
+        Method method = testResult.getMethod().getConstructorOrMethod().getMethod();
+        PerformanceBudget budget = method == null ? null : method.getAnnotation(PerformanceBudget.class);
+        if (budget == null || !Boolean.parseBoolean(System.getProperty("perf.budgets", "false"))) {
+            callBack.runTestMethod(testResult);
+            return;
+        }
+        for (int i = 0; i < budget.warmup(); i++) {
+            if (!invoke(callBack, testResult)) {
+                return;
+            }
+        }
+        Histogram timings = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        for (int i = 0; i < budget.iterations(); i++) {
+            long start = System.nanoTime();
+            if (!invoke(callBack, testResult)) {
+                return;
+            }
+            timings.recordValue(Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start), 1), HIGHEST_TRACKABLE_MICROS));
+        }
+        double actual = millis(budget.percentile() >= 100 ? timings.getMaxValue() : timings.getValueAtPercentile(budget.percentile()));
+        String breakdown = breakdown(budget, timings);
+        Allure.addAttachment("Performance budget", "text/plain", breakdown, ".txt");
+        if (actual > budget.millis()) {
+            testResult.setStatus(ITestResult.FAILURE);
+            testResult.setThrowable(new AssertionError(String.format(Locale.ROOT,
+                    "%s %.1f ms exceeds budget %d ms over %d iterations%n%s",
+                    label(budget.percentile()), actual, budget.millis(), budget.iterations(), breakdown)));
+        }
+    }
+
+    // false — итерация упала, её исключение уже лежит в testResult
+    private static boolean invoke(IHookCallBack callBack, ITestResult testResult) {
+        callBack.runTestMethod(testResult);
+        return testResult.getThrowable() == null;
+    }
+
+    static String breakdown(PerformanceBudget budget, Histogram timings) {
+        StringBuilder text = new StringBuilder(String.format(Locale.ROOT,
+                "budget: %s < %d ms, %d iterations after %d warm-up%n",
+                label(budget.percentile()), budget.millis(), budget.iterations(), budget.warmup()));
+        text.append(String.format(Locale.ROOT, "min    %9.2f ms%n", millis(timings.getMinValue())));
+        for (double percentile : BREAKDOWN) {
+            text.append(String.format(Locale.ROOT, "%-6s %9.2f ms%n", label(percentile), millis(timings.getValueAtPercentile(percentile))));
+        }
+        text.append(String.format(Locale.ROOT, "max    %9.2f ms%n", millis(timings.getMaxValue())));
+        text.append(String.format(Locale.ROOT, "mean   %9.2f ms%n", timings.getMean() / 1_000.0));
+        return text.toString();
+    }
+
+    private static String label(double percentile) {
+        if (percentile >= 100) {
+            return "max";
+        }
+        return percentile == Math.rint(percentile) ? "p" + (long) percentile : "p" + percentile;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1_000.0;
+    }
+}
@@ -0,0 +1,210 @@
+package org.example;
+
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import io.restassured.specification.MultiPartSpecification;
+import io.restassured.specification.RequestSpecification;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.testng.asserts.SoftAssert;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Тестовый случай из файла сценариев, скомпилированный в готовый к отправке запрос.
+ * <p>
+ * Файл — JSONL в src/test/resources, одна строка — один случай:
+ * <pre>
+ * {"name": "...", "feature": "...", "endpoint": "UPDATE_POST", "params": ["5"], "authorized": true,
+ *  "headers": {"X-Trace": "1"}, "body": {...}, "multipart": [{"name": "title", "value": "Title"}, {"file": "sc.png"}],
+ *  "status": 404, "fields": {"statusCode": 404, "message": "*"}}
+ * </pre>
+ * method необязателен (по умолчанию метод эндпоинта), fields тоже (без него проверяется только статус),
+ * authorized — запрос с токеном арендованного пользователя, в fields "*" означает «поле есть и не null».
+ * Всё, что не зависит от токена, — заголовки, тело, части multipart, разбор ожидаемых полей —
+ * готовится один раз при загрузке;
+ * на каждый прогон остаётся только сборка запроса RestAssured и один проход по телу ответа.
+ */
+public final class RequestPlan {
+
+    private static final String ANY = "*";
+    private static final Map<String, List<RequestPlan>> LOADED = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final String feature;
+    private final Endpoint endpoint;
+    private final String method;
+    private final String[] parameters;
+    private final boolean authorized;
+    private final Headers headers;
+    private final String body;
+    private final List<Part> parts;
+    private final int status;
+    private final JsonFields.Expectations fields;
+
+    private RequestPlan(JSONObject spec) {
+        name = spec.getString("name");
+        feature = spec.optString("feature", name);
+        endpoint = Endpoint.valueOf(spec.getString("endpoint"));
+        method = spec.optString("method", endpoint.method());
+        JSONArray params = spec.optJSONArray("params");
+        parameters = new String[params == null ? 0 : params.length()];
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = params.getString(i);
+        }
+        // Проверка числа параметров сразу, а не при первом запуске
+        endpoint.expand(parameters);
+        authorized = spec.optBoolean("authorized", false);
+
+        List<Header> headerList = new ArrayList<>();
+        JSONObject headerSpec = spec.optJSONObject("headers");
+        if (headerSpec != null) {
+            for (String header : headerSpec.keySet()) {
+                headerList.add(new Header(header, headerSpec.getString(header)));
+            }
+        }
+        headers = new Headers(headerList);
+
+        Object bodySpec = spec.opt("body");
+        body = bodySpec == null ? null : bodySpec.toString();
+
+        parts = new ArrayList<>();
+        JSONArray multipart = spec.optJSONArray("multipart");
+        for (int i = 0; multipart != null && i < multipart.length(); i++) {
+            JSONObject part = multipart.getJSONObject(i);
+            parts.add(part.has("file")
+                    ? new Part(null, null, UploadFixtures.image(part.getString("file")))
+                    : new Part(part.getString("name"), part.getString("value"), null));
+        }
+
+        status = spec.getInt("status");
+        JSONObject fieldSpec = spec.optJSONObject("fields");
+        if (fieldSpec == null || fieldSpec.isEmpty()) {
+            fields = null;
+        } else {
+            String[] paths = fieldSpec.keySet().toArray(String[]::new);
+            JsonFields.Expectations expectations = JsonFields.of(paths).expect();
+            for (String path : paths) {
+                String expected = String.valueOf(fieldSpec.get(path));
+                if (ANY.equals(expected)) {
+                    expectations.notNull(path, name + ": " + path + " is null");
+                } else {
+                    expectations.equal(path, expected, name + ": " + path + " mismatch");
+                }
+            }
+            fields = expectations;
+        }
+    }
+
+    /**
+     * Случаи из ресурса classpath; файл разбирается один раз, повторный вызов отдаёт те же планы.
+     */
+    public static List<RequestPlan> load(String resource) {
+        return LOADED.computeIfAbsent(resource, RequestPlan::compile);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String feature() {
+        return feature;
+    }
+
+    /**
+     * Нужен ли запросу токен арендованного пользователя.
+     */
+    public boolean authorized() {
+        return authorized;
+    }
+
+    /**
+     * @param testData пользователь с токеном; для случаев без authorized не используется и может быть null
+     */
+    public Response execute(TestData testData) {
+        return request(testData).when().request(method);
+    }
+
+    /**
+     * То же, что {@link #execute(TestData)}, но через {@link AsyncApi}: запрос собирается
+     * в потоке вызывающего, отправляется на потоке AsyncApi.
+     */
+    public CompletableFuture<Response> submit(AsyncApi async, TestData testData) {
+        RequestSpecification request = request(testData);
+        return async.submit(() -> request.when().request(method));
+    }
+
+    public void verify(Response response, SoftAssert softAssert) {
+        softAssert.assertEquals(response.statusCode(), status, name + ": status code " + status);
+        if (fields != null) {
+            fields.verify(response, softAssert);
+        }
+    }
+
+    // TestNG и Allure показывают параметр теста через toString
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private RequestSpecification request(TestData testData) {
+        RequestSpecification request = authorized
+                ? ApiSpecs.authorized(testData, endpoint, parameters)
+                : ApiSpecs.api(endpoint, parameters);
+        if (headers.exist()) {
+            request.headers(headers);
+        }
+        if (body != null) {
+            request.body(body);
+        }
+        for (Part part : parts) {
+            if (part.file() != null) {
+                request.multiPart(part.file());
+            } else {
+                request.multiPart(part.name(), part.value());
+            }
+        }
+        return request;
+    }
+
+    private static List<RequestPlan> compile(String resource) {
+        InputStream in = RequestPlan.class.getResourceAsStream("/" + resource);
+        if (in == null) {
+            throw new IllegalArgumentException("Scenario file not found on classpath: " + resource);
+        }
+        List<RequestPlan> plans = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    plans.add(new RequestPlan(new JSONObject(line)));
+                } catch (JSONException | IllegalArgumentException e) {
+                    throw new IllegalArgumentException(resource + ":" + number + ": " + e.getMessage(), e);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read scenario file " + resource, e);
+        }
+        return List.copyOf(plans);
+    }
+
+    private record Part(String name, String value, MultiPartSpecification file) {
+    }
+}
@@ -0,0 +1,127 @@
+package org.example;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Фильтр RestAssured, повторяющий запрос по {@link RetryPolicy}. Повтор идёт через context.send, то есть
+ * заново через всю цепочку фильтров; пока он идёт, {@link #retrying()} истинно, и этот фильтр,
+ * {@link LatencyFilter} и {@link MetricsFilter} пропускают запрос без учёта. Поэтому задержка в отчётах —
+ * та, что видит тест: все попытки и паузы между ними, а число повторов — в {@link #retries()}.
+ * <p>
+ * Если попытки или budget кончились, отдаётся последний ответ или пробрасывается последнее исключение.
+ */
+public class RetryFilter implements Filter {
+
+    private static final ThreadLocal<Boolean> RETRYING = ThreadLocal.withInitial(() -> false);
+
+    private final RetryPolicy policy;
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    public RetryFilter(RetryPolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Истинно, пока текущий поток отправляет повтор.
+     */
+    public static boolean retrying() {
+        return RETRYING.get();
+    }
+
+    public RetryPolicy policy() {
+        return policy;
+    }
+
+    public long retries() {
+        return retries.sum();
+    }
+
+    /**
+     * Запросы, которые так и не удались за все попытки или budget.
+     */
+    public long exhausted() {
+        return exhausted.sum();
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification request,
+                           FilterableResponseSpecification response,
+                           FilterContext context) {
+        if (!policy.enabled() || RETRYING.get() || !policy.retries(request.getMethod())) {
+            return context.next(request, response);
+        }
+        long deadline = System.nanoTime() + policy.budget().toNanos();
+        for (int attempt = 1; ; attempt++) {
+            Response result = null;
+            Throwable failure = null;
+            try {
+                result = attempt == 1 ? context.next(request, response) : resend(request, context);
+                if (!policy.retries(result.statusCode())) {
+                    return result;
+                }
+            } catch (Exception e) {
+                // RestAssured пробрасывает IOException HttpClient как есть, без обёртки
+                if (!isConnectionFailure(e)) {
+                    throw e;
+                }
+                failure = e;
+            }
+            long backoff = policy.backoffNanos(attempt);
+            if (attempt >= policy.maxAttempts() || System.nanoTime() + backoff >= deadline) {
+                exhausted.increment();
+                if (failure != null) {
+                    throw RetryFilter.<RuntimeException>rethrow(failure);
+                }
+                return result;
+            }
+            if (result != null) {
+                // Дочитываем тело, чтобы соединение вернулось в пул до паузы
+                result.asByteArray();
+            }
+            sleep(backoff);
+            retries.increment();
+        }
+    }
+
+    private static Response resend(FilterableRequestSpecification request, FilterContext context) {
+        RETRYING.set(true);
+        try {
+            return context.send(request);
+        } finally {
+            RETRYING.set(false);
+        }
+    }
+
+    private static boolean isConnectionFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void sleep(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off", e);
+        }
+    }
+
+    // Исходное исключение, в том числе checked IOException, уходит вызывающему без обёртки
+    @SuppressWarnings("unchecked")
+    private static <T extends Throwable> T rethrow(Throwable error) throws T {
+        throw (T) error;
+    }
+}
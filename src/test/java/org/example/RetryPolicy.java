@@ -0,0 +1,64 @@
+package org.example;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Политика повторов {@link RetryFilter}: повторяются только идемпотентные методы (GET, HEAD, OPTIONS, PUT, DELETE)
+ * при обрыве соединения или таймауте и при ответах 429, 502, 503, 504. POST и PATCH не повторяются никогда:
+ * их повтор после потерянного ответа создал бы дубль.
+ * <p>
+ * Пауза перед попыткой n — full jitter: случайная в [0, min(maxDelay, baseDelay * 2^(n-1))], чтобы клиенты,
+ * упавшие одновременно, не возвращались к серверу одной волной. budget ограничивает всё время запроса
+ * с повторами: попытка, которая начнётся позже, не делается. Таймаут одной попытки — -Dhttp.readTimeout.
+ * <p>
+ * Настройки: -Dhttp.retry.attempts (всего попыток, по умолчанию 1 — без повторов), -Dhttp.retry.baseDelay (PT0.05S),
+ * -Dhttp.retry.maxDelay (PT1S), -Dhttp.retry.budget (PT10S).
+ */
+public record RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay, Duration budget) {
+
+    public static final RetryPolicy NONE = new RetryPolicy(1, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+
+    private static final Set<String> IDEMPOTENT = Set.of("GET", "HEAD", "OPTIONS", "PUT", "DELETE");
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(429, 502, 503, 504);
+
+    public RetryPolicy {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+    }
+
+    public static RetryPolicy fromSystemProperties() {
+        int attempts = Integer.getInteger("http.retry.attempts", 1);
+        if (attempts <= 1) {
+            return NONE;
+        }
+        return new RetryPolicy(attempts,
+                Duration.parse(System.getProperty("http.retry.baseDelay", "PT0.05S")),
+                Duration.parse(System.getProperty("http.retry.maxDelay", "PT1S")),
+                Duration.parse(System.getProperty("http.retry.budget", "PT10S")));
+    }
+
+    public boolean enabled() {
+        return maxAttempts > 1;
+    }
+
+    public boolean retries(String method) {
+        return IDEMPOTENT.contains(method.toUpperCase(Locale.ROOT));
+    }
+
+    public boolean retries(int statusCode) {
+        return RETRYABLE_STATUSES.contains(statusCode);
+    }
+
+    /**
+     * Пауза перед повтором после неудачной попытки attempt (с 1).
+     */
+    public long backoffNanos(int attempt) {
+        long base = baseDelay.toNanos();
+        long ceiling = Math.min(maxDelay.toNanos(), base << Math.min(attempt - 1, 30));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
@@ -0,0 +1,68 @@
+package org.example;
+
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.listener.TestLifecycleListener;
+import io.qameta.allure.model.FixtureResult;
+import io.qameta.allure.model.Status;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.model.TestResultContainer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Итоговый отчёт прогона: файл в target/ и вложение в Allure вместо вывода в консоль.
+ * <p>
+ * Вложений уровня прогона в Allure нет, поэтому отчёт оформляется как tear down контейнера,
+ * в который входят все тесты прогона, — так же Allure показывает @AfterSuite. Тесты собирает этот же
+ * класс как слушатель жизненного цикла Allure (META-INF/services). {@link #publish} вызывается
+ * из IReporter#generateReport: TestNG зовёт его после всех сьютов (и их onFinish), но до
+ * onExecutionFinish, пока писатель Allure ещё открыт.
+ */
+public final class RunReport implements TestLifecycleListener {
+
+    private static final Queue<String> TESTS = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Пишет text в target/fileName и прикладывает его ко всем записанным тестам под заголовком title.
+     */
+    static Path publish(String title, String fileName, String text) {
+        Path file = Path.of("target", fileName);
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, text, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + file, e);
+        }
+        List<String> tests = List.copyOf(TESTS);
+        if (!tests.isEmpty()) {
+            attach(title, text, tests);
+        }
+        return file;
+    }
+
+    @Override
+    public void afterTestWrite(TestResult result) {
+        TESTS.add(result.getUuid());
+    }
+
+    private static void attach(String title, String text, List<String> tests) {
+        AllureLifecycle lifecycle = Allure.getLifecycle();
+        String container = UUID.randomUUID().toString();
+        String fixture = UUID.randomUUID().toString();
+        lifecycle.startTestContainer(new TestResultContainer().setUuid(container).setName(title).setChildren(tests));
+        lifecycle.startTearDownFixture(container, fixture, new FixtureResult().setName(title).setStatus(Status.PASSED));
+        lifecycle.addAttachment(title, "text/plain", ".txt", text.getBytes(StandardCharsets.UTF_8));
+        lifecycle.stopFixture(fixture);
+        lifecycle.stopTestContainer(container);
+        lifecycle.writeTestContainer(container);
+    }
+}
@@ -0,0 +1,251 @@
+package org.example;
+
+import io.qameta.allure.AllureResultsWriter;
+import io.qameta.allure.internal.Allure2ModelJackson;
+import io.qameta.allure.internal.shadowed.jackson.databind.ObjectMapper;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.model.TestResultContainer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Писатель результатов Allure в append-only сегменты вместо файла на каждый тест и контейнер.
+ * Сериализация и запись идут в отдельном потоке; тестовый поток только кладёт результат
+ * в ограниченную очередь (при переполнении ждёт — это и есть backpressure).
+ * <p>
+ * Каждый прогон пишет в свой каталог run-&lt;время&gt;-&lt;pid&gt;-&lt;номер в JVM&gt;, хранятся последние keepRuns прогонов.
+ * Запись сегмента: имя файла в стандартной раскладке, длина, байты; оборванная
+ * последняя запись (падение JVM) при чтении отбрасывается. {@link #export} разворачивает
+ * прогон в обычный каталог allure-results:
+ * mvn test-compile exec:java -Dexec.mainClass=org.example.SegmentedResultsWriter -Dexec.classpathScope=test
+ */
+public final class SegmentedResultsWriter implements AllureResultsWriter, AutoCloseable {
+
+    private static final String RUN_PREFIX = "run-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final DateTimeFormatter RUN_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final Record END = new Record("", null, null);
+    private static final AtomicInteger RUNS = new AtomicInteger();
+
+    private final Path run;
+    private final long segmentBytes;
+    private final BlockingQueue<Record> queue = new ArrayBlockingQueue<>(4_096);
+    private final ObjectMapper mapper = Allure2ModelJackson.createMapper();
+    private final Thread worker;
+
+    private DataOutputStream segment;
+    private int segmentIndex;
+    private long segmentSize;
+    private volatile long records;
+    private volatile IOException failure;
+
+    public SegmentedResultsWriter(Path root, int keepRuns, long segmentBytes) {
+        this.segmentBytes = segmentBytes;
+        try {
+            Files.createDirectories(root);
+            prune(root, keepRuns - 1);
+            // Метка времени упорядочивает прогоны, pid и счётчик не дают совпасть прогонам в одну миллисекунду
+            run = Files.createDirectory(root.resolve(String.format("%s%s-%d-%04d", RUN_PREFIX,
+                    LocalDateTime.now().format(RUN_NAME), ProcessHandle.current().pid(), RUNS.incrementAndGet())));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot prepare " + root, e);
+        }
+        worker = new Thread(this::drain, "allure-segments");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public Path run() {
+        return run;
+    }
+
+    @Override
+    public void write(TestResult testResult) {
+        enqueue(new Record(testResult.getUuid() + "-result.json", testResult, null));
+    }
+
+    @Override
+    public void write(TestResultContainer testResultContainer) {
+        enqueue(new Record(testResultContainer.getUuid() + "-container.json", testResultContainer, null));
+    }
+
+    // Поток вложения после вызова может быть закрыт, поэтому читается сразу
+    @Override
+    public void write(String source, InputStream attachment) {
+        try (attachment) {
+            enqueue(new Record(source, null, attachment.readAllBytes()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read attachment " + source, e);
+        }
+    }
+
+    /**
+     * Число записанных результатов, контейнеров и вложений; точное после {@link #close()}.
+     */
+    public long records() {
+        return records;
+    }
+
+    /**
+     * Дописывает очередь и закрывает текущий сегмент.
+     */
+    @Override
+    public void close() {
+        enqueue(END);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Cannot write Allure segments to " + run, failure);
+        }
+    }
+
+    /**
+     * Раскладывает сегменты прогона по файлам, как их написал бы стандартный FileSystemResultsWriter.
+     *
+     * @return число созданных файлов
+     */
+    public static int export(Path run, Path target) throws IOException {
+        Files.createDirectories(target);
+        int files = 0;
+        for (Path segment : list(run, SEGMENT_SUFFIX)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+                while (true) {
+                    String name;
+                    byte[] body;
+                    try {
+                        name = in.readUTF();
+                        body = new byte[in.readInt()];
+                        in.readFully(body);
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    Files.write(target.resolve(name), body);
+                    files++;
+                }
+            }
+        }
+        return files;
+    }
+
+    public static Path latestRun(Path root) throws IOException {
+        List<Path> runs = list(root, null);
+        if (runs.isEmpty()) {
+            throw new IllegalStateException("No Allure runs in " + root);
+        }
+        return runs.get(runs.size() - 1);
+    }
+
+    /**
+     * Экспорт последнего прогона: [каталог сегментов] [каталог allure-results].
+     */
+    public static void main(String[] args) throws IOException {
+        Path root = Path.of(args.length > 0 ? args[0] : AllureStorageListener.DEFAULT_ROOT);
+        Path target = Path.of(args.length > 1 ? args[1] : System.getProperty("allure.results.directory", "allure-results"));
+        Path run = latestRun(root);
+        System.out.println("Exported " + export(run, target) + " files from " + run + " to " + target);
+    }
+
+    private void enqueue(Record record) {
+        if (failure != null) {
+            throw new UncheckedIOException("Allure segment writer failed", failure);
+        }
+        try {
+            queue.put(record);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing Allure result " + record.name(), e);
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                Record record = queue.poll();
+                if (record == null) {
+                    // Очередь опустела — сбрасываем буфер, чтобы упавший прогон потерял минимум
+                    if (segment != null) {
+                        segment.flush();
+                    }
+                    record = queue.take();
+                }
+                if (record == END) {
+                    break;
+                }
+                append(record.name(), record.model() != null ? mapper.writeValueAsBytes(record.model()) : record.bytes());
+            }
+            if (segment != null) {
+                segment.close();
+            }
+        } catch (IOException e) {
+            failure = e;
+            queue.clear();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void append(String name, byte[] body) throws IOException {
+        if (segment == null || segmentSize >= segmentBytes) {
+            if (segment != null) {
+                segment.close();
+            }
+            Path file = run.resolve(String.format("segment-%05d%s", ++segmentIndex, SEGMENT_SUFFIX));
+            segment = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024));
+            segmentSize = 0;
+        }
+        int before = segment.size();
+        segment.writeUTF(name);
+        segment.writeInt(body.length);
+        segment.write(body);
+        segmentSize += segment.size() - before;
+        records++;
+    }
+
+    private static void prune(Path root, int keep) throws IOException {
+        List<Path> runs = list(root, null);
+        for (int i = 0; i < runs.size() - Math.max(keep, 0); i++) {
+            try (Stream<Path> files = Files.walk(runs.get(i))) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    // suffix == null — каталоги прогонов; имена сортируются по времени
+    private static List<Path> list(Path directory, String suffix) throws IOException {
+        try (Stream<Path> entries = Files.list(directory)) {
+            List<Path> result = new ArrayList<>(entries
+                    .filter(path -> suffix == null
+                            ? Files.isDirectory(path) && path.getFileName().toString().startsWith(RUN_PREFIX)
+                            : path.getFileName().toString().endsWith(suffix))
+                    .toList());
+            result.sort(Comparator.comparing(path -> path.getFileName().toString()));
+            return result;
+        }
+    }
+
+    private record Record(String name, Object model, byte[] bytes) {
+    }
+}
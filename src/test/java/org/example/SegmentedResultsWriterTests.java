@@ -0,0 +1,65 @@
+package org.example;
+
+import io.qameta.allure.Description;
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import io.qameta.allure.model.Status;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.model.TestResultContainer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+@Epic("Инфраструктура тестов")
+public class SegmentedResultsWriterTests {
+
+    @Test
+    @Feature("Хранение результатов Allure")
+    @Description("Сегменты прогона разворачиваются в стандартную раскладку allure-results.")
+    public void givenWrittenResults_whenExport_thenStandardLayoutRestored() throws Exception {
+        Path root = Files.createTempDirectory("allure-segments");
+        Path target = Files.createTempDirectory("allure-results");
+
+        // Маленький сегмент, чтобы записи разошлись по нескольким файлам
+        SegmentedResultsWriter writer = new SegmentedResultsWriter(root, 2, 256);
+        for (int i = 0; i < 10; i++) {
+            writer.write(new TestResult().setUuid("test-" + i).setName("test " + i).setStatus(Status.PASSED));
+        }
+        writer.write(new TestResultContainer().setUuid("suite").setName("suite"));
+        writer.write("log-attachment.txt", new ByteArrayInputStream("log".getBytes(StandardCharsets.UTF_8)));
+        writer.close();
+
+        int exported = SegmentedResultsWriter.export(writer.run(), target);
+
+        Assert.assertEquals(writer.records(), 12);
+        Assert.assertEquals(exported, 12);
+        Assert.assertTrue(Files.readString(target.resolve("test-3-result.json")).contains("\"name\":\"test 3\""));
+        Assert.assertTrue(Files.exists(target.resolve("suite-container.json")));
+        Assert.assertEquals(Files.readString(target.resolve("log-attachment.txt")), "log");
+        try (Stream<Path> segments = Files.list(writer.run())) {
+            Assert.assertTrue(segments.count() > 1, "records should roll over into several segments");
+        }
+    }
+
+    @Test
+    @Feature("Хранение результатов Allure")
+    @Description("Хранятся только последние N прогонов.")
+    public void givenMoreRunsThanKept_whenNewRunStarts_thenOldestPruned() throws Exception {
+        Path root = Files.createTempDirectory("allure-segments");
+        SegmentedResultsWriter last = null;
+        for (int i = 0; i < 4; i++) {
+            last = new SegmentedResultsWriter(root, 2, 1024);
+            last.close();
+        }
+
+        try (Stream<Path> runs = Files.list(root)) {
+            Assert.assertEquals(runs.count(), 2);
+        }
+        Assert.assertEquals(SegmentedResultsWriter.latestRun(root), last.run(), "runs in one millisecond must keep their order");
+    }
+}
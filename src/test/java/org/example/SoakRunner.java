@@ -0,0 +1,240 @@
+package org.example;
+
+import org.apache.http.pool.PoolStats;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Прогон на выносливость: {@link LoadScenarios} (потоки из {@link AuthTests}) крутятся заданное время
+ * через {@link LoadRunner}, а каждые sampleInterval снимаются ресурсы клиента — heap после GC,
+ * число платформенных потоков, открытые дескрипторы, соединения пула {@link ApiSpecs#connectionStats()} —
+ * и число постов и комментариев на заглушке. В конце — тренды и вердикт:
+ * <ul>
+ *     <li>рост heap, потоков и дескрипторов между первой и последней третью прогона (без прогрева) в пределах лимитов;</li>
+ *     <li>после остановки нагрузки ни одно соединение не занято;</li>
+ *     <li>все созданные посты и комментарии удалены: по успешным create/delete на клиенте и по счётчикам заглушки.</li>
+ * </ul>
+ * Запуск: mvn -Psoak test-compile exec:java -Dsoak.duration=PT2H [-Dapi.stub=true]
+ * [-Dsoak.users=4] [-Dsoak.sampleInterval=PT30S] [-Dsoak.warmup=PT5M]
+ * [-Dsoak.maxHeapGrowthMb=64] [-Dsoak.maxThreadGrowth=8] [-Dsoak.maxFdGrowth=32]
+ * [-Dfaults=...] [-Dmetrics.port=...] — как у {@link LoadRunner}, см. {@link LoadEnvironment}.
+ * Провал вердикта роняет запуск; отчёт также пишется в target/soak-report.txt.
+ */
+public class SoakRunner {
+
+    private static final Path REPORT = Path.of("target", "soak-report.txt");
+
+    private final LoadProfile profile;
+    private final Duration sampleInterval;
+    private final Duration warmup;
+    private final Limits limits;
+    private final NewsApiStub stub;
+
+    /**
+     * @param stub заглушка, на которой считать посты и комментарии, или null для живого API
+     */
+    public SoakRunner(LoadProfile profile, Duration sampleInterval, Duration warmup, Limits limits, NewsApiStub stub) {
+        this.profile = profile;
+        this.sampleInterval = sampleInterval;
+        this.warmup = warmup;
+        this.limits = limits;
+        this.stub = stub;
+    }
+
+    public static void main(String[] args) throws Exception {
+        try (LoadEnvironment environment = LoadEnvironment.start()) {
+            Duration duration = Duration.parse(System.getProperty("soak.duration", "PT10M"));
+            LoadProfile profile = new LoadProfile(Integer.getInteger("soak.users", 4), 0, Duration.ZERO, duration);
+            environment.provision(profile.users());
+            SoakRunner runner = new SoakRunner(profile,
+                    Duration.parse(System.getProperty("soak.sampleInterval", "PT30S")),
+                    Duration.parse(System.getProperty("soak.warmup", duration.dividedBy(5).toString())),
+                    Limits.fromSystemProperties(), environment.stub());
+            System.out.println("Soak against " + Endpoint.baseUrl() + ": " + profile);
+            Report report = runner.run();
+            String faults = environment.faultSummary();
+            String text = faults.isEmpty() ? report.text() : report.text() + faults + "\n";
+            System.out.print(text);
+            Files.createDirectories(REPORT.getParent());
+            Files.writeString(REPORT, text, StandardCharsets.UTF_8);
+            if (!report.passed()) {
+                throw new IllegalStateException("Soak verdict: FAIL, see " + REPORT);
+            }
+        }
+    }
+
+    public Report run() throws InterruptedException, ExecutionException {
+        List<Sample> samples = new ArrayList<>();
+        long start = System.nanoTime();
+        samples.add(sample(start));
+        System.out.println(Sample.HEADER);
+        System.out.println(samples.get(0).line());
+        LoadRunner.Result load;
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "soak-load");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Future<LoadRunner.Result> running = executor.submit(new LoadRunner(LoadScenarios.defaults(), profile)::run);
+            while (true) {
+                try {
+                    load = running.get(sampleInterval.toNanos(), TimeUnit.NANOSECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    Sample sample = sample(start);
+                    samples.add(sample);
+                    System.out.println(sample.line());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // Последний замер — после остановки нагрузки: занятых соединений быть не должно
+        Sample idle = sample(start);
+        return new Report(load, samples, idle, evaluate(samples, idle));
+    }
+
+    private Sample sample(long start) {
+        System.gc();
+        PoolStats pool = ApiSpecs.connectionStats();
+        return new Sample(Duration.ofNanos(System.nanoTime() - start),
+                ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(),
+                ManagementFactory.getThreadMXBean().getThreadCount(),
+                openFileDescriptors(),
+                pool.getLeased(), pool.getAvailable(),
+                stub != null ? stub.postCount() : -1,
+                stub != null ? stub.commentCount() : -1);
+    }
+
+    List<Check> evaluate(List<Sample> samples, Sample idle) {
+        List<Sample> steady = samples.stream().filter(sample -> sample.at().compareTo(warmup) >= 0).toList();
+        List<Check> checks = new ArrayList<>();
+        checks.add(growth("heap after GC, MB", steady, sample -> sample.heapBytes() / (1024.0 * 1024.0), limits.heapGrowthMb()));
+        checks.add(growth("platform threads", steady, Sample::threads, limits.threadGrowth()));
+        if (idle.fileDescriptors() >= 0) {
+            checks.add(growth("open file descriptors", steady, Sample::fileDescriptors, limits.fdGrowth()));
+        }
+        checks.add(new Check("leased connections after load", idle.leased(), 0, idle.leased() == 0, ""));
+        long posts = succeeded(Endpoint.CREATE_POST) - succeeded(Endpoint.DELETE_POST);
+        long comments = succeeded(Endpoint.CREATE_COMMENT) - succeeded(Endpoint.DELETE_COMMENT);
+        checks.add(new Check("posts created and not deleted", posts, 0, posts == 0, "by successful client calls"));
+        checks.add(new Check("comments created and not deleted", comments, 0, comments == 0, "by successful client calls"));
+        if (idle.posts() >= 0) {
+            Sample first = samples.get(0);
+            checks.add(new Check("posts on stub", idle.posts() - first.posts(), 0, idle.posts() == first.posts(), "growth since start"));
+            checks.add(new Check("comments on stub", idle.comments() - first.comments(), 0, idle.comments() == first.comments(), "growth since start"));
+        }
+        return checks;
+    }
+
+    // Медиана последней трети минус медиана первой трети; наклон МНК — для отчёта
+    static Check growth(String name, List<Sample> steady, ToDoubleFunction<Sample> metric, double limit) {
+        if (steady.size() < 3) {
+            return new Check(name, 0, limit, true, "not enough samples after warm-up (" + steady.size() + ")");
+        }
+        int third = steady.size() / 3;
+        double growth = median(steady.subList(steady.size() - third, steady.size()), metric) - median(steady.subList(0, third), metric);
+        return new Check(name, growth, limit, growth <= limit, String.format(Locale.ROOT, "trend %+.2f/h", slopePerHour(steady, metric)));
+    }
+
+    private static double median(List<Sample> samples, ToDoubleFunction<Sample> metric) {
+        double[] values = samples.stream().mapToDouble(metric).sorted().toArray();
+        int middle = values.length / 2;
+        return values.length % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2;
+    }
+
+    private static double slopePerHour(List<Sample> samples, ToDoubleFunction<Sample> metric) {
+        double[] hours = samples.stream().mapToDouble(sample -> sample.at().toMillis() / 3_600_000.0).toArray();
+        double[] values = samples.stream().mapToDouble(metric).toArray();
+        double meanX = Arrays.stream(hours).average().orElse(0);
+        double meanY = Arrays.stream(values).average().orElse(0);
+        double covariance = 0;
+        double variance = 0;
+        for (int i = 0; i < hours.length; i++) {
+            covariance += (hours[i] - meanX) * (values[i] - meanY);
+            variance += (hours[i] - meanX) * (hours[i] - meanX);
+        }
+        return variance == 0 ? 0 : covariance / variance;
+    }
+
+    private static long succeeded(Endpoint endpoint) {
+        return LatencyRecorder.shared().snapshot().stream()
+                .filter(latency -> latency.endpoint() == endpoint)
+                .mapToLong(latency -> latency.requests() - latency.errors())
+                .sum();
+    }
+
+    private static long openFileDescriptors() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        return os instanceof com.sun.management.UnixOperatingSystemMXBean unix ? unix.getOpenFileDescriptorCount() : -1;
+    }
+
+    /**
+     * Допустимый рост между началом и концом установившегося режима.
+     */
+    public record Limits(double heapGrowthMb, double threadGrowth, double fdGrowth) {
+
+        public static Limits fromSystemProperties() {
+            return new Limits(
+                    Double.parseDouble(System.getProperty("soak.maxHeapGrowthMb", "64")),
+                    Double.parseDouble(System.getProperty("soak.maxThreadGrowth", "8")),
+                    Double.parseDouble(System.getProperty("soak.maxFdGrowth", "32")));
+        }
+    }
+
+    /**
+     * posts/comments — на заглушке, -1 для живого API; fileDescriptors — -1 вне Unix.
+     */
+    public record Sample(Duration at, long heapBytes, int threads, long fileDescriptors,
+                         int leased, int available, int posts, int comments) {
+
+        static final String HEADER = String.format("%-10s %10s %8s %8s %7s %9s %7s %9s",
+                "at", "heap MB", "threads", "fds", "leased", "available", "posts", "comments");
+
+        String line() {
+            return String.format(Locale.ROOT, "%-10s %10.1f %8d %8d %7d %9d %7d %9d",
+                    at.withNanos(0).toString().substring(2).toLowerCase(Locale.ROOT),
+                    heapBytes / (1024.0 * 1024.0), threads, fileDescriptors, leased, available, posts, comments);
+        }
+    }
+
+    public record Check(String name, double actual, double limit, boolean passed, String note) {
+    }
+
+    public record Report(LoadRunner.Result load, List<Sample> samples, Sample idle, List<Check> checks) {
+
+        public boolean passed() {
+            return checks.stream().allMatch(Check::passed);
+        }
+
+        public String text() {
+            StringBuilder text = new StringBuilder(load.report());
+            text.append('\n').append(Sample.HEADER).append('\n');
+            samples.forEach(sample -> text.append(sample.line()).append('\n'));
+            text.append(idle.line()).append("  (after load)\n\n");
+            for (Check check : checks) {
+                text.append(String.format(Locale.ROOT, "%-4s %-34s %10.2f (limit %.2f) %s%n",
+                        check.passed() ? "OK" : "FAIL", check.name(), check.actual(), check.limit(), check.note()));
+            }
+            text.append("Soak verdict: ").append(passed() ? "PASS" : "FAIL").append('\n');
+            return text.toString();
+        }
+    }
+}
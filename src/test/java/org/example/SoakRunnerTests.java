@@ -0,0 +1,37 @@
+package org.example;
+
+import io.qameta.allure.Description;
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Epic("Инфраструктура тестов")
+public class SoakRunnerTests {
+
+    @Test
+    @Feature("Прогон на выносливость")
+    @Description("Стабильно растущий heap даёт провал вердикта, колебания вокруг одного уровня — нет.")
+    public void givenSteadyHeapGrowth_whenEvaluated_thenGrowthCheckFails() {
+        List<SoakRunner.Sample> leaking = new ArrayList<>();
+        List<SoakRunner.Sample> stable = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Duration at = Duration.ofMinutes(10L * i);
+            leaking.add(new SoakRunner.Sample(at, (100L + 10L * i) << 20, 20, 100, 0, 4, -1, -1));
+            stable.add(new SoakRunner.Sample(at, (100L + (i % 2 == 0 ? 5 : -5)) << 20, 20, 100, 0, 4, -1, -1));
+        }
+        SoftAssert softAssert = new SoftAssert();
+
+        SoakRunner.Check leak = SoakRunner.growth("heap", leaking, sample -> sample.heapBytes() / (1024.0 * 1024.0), 64);
+        SoakRunner.Check flat = SoakRunner.growth("heap", stable, sample -> sample.heapBytes() / (1024.0 * 1024.0), 64);
+
+        softAssert.assertFalse(leak.passed(), "Leak not detected: " + leak);
+        softAssert.assertEquals(leak.actual(), 80.0, 0.01, "Growth between first and last third");
+        softAssert.assertTrue(flat.passed(), "Stable heap flagged: " + flat);
+        softAssert.assertAll();
+    }
+}
@@ -0,0 +1,37 @@
+package org.example;
+
+/**
+ * Данные теста, изолированные по потоку: при parallel="methods" каждый поток TestNG
+ * получает собственный TestData, поэтому postId/commentId одного теста не видны другому.
+ * Пользователь арендуется в {@link UserPool} на время теста, так что параллельные тесты
+ * работают под разными аккаунтами.
+ */
+public final class TestContext {
+
+    static final String DEFAULT_EMAIL = "5test.user@example.com";
+    static final String DEFAULT_PASSWORD = "password123";
+
+    private static final ThreadLocal<TestData> CURRENT = new ThreadLocal<>();
+
+    private TestContext() {
+    }
+
+    public static TestData start() {
+        TestData testData = UserPool.shared().lease();
+        CURRENT.set(testData);
+        return testData;
+    }
+
+    public static TestData current() {
+        TestData testData = CURRENT.get();
+        if (testData == null) {
+            throw new IllegalStateException("TestContext is not started for thread " + Thread.currentThread().getName());
+        }
+        return testData;
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+        UserPool.shared().release();
+    }
+}
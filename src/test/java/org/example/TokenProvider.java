@@ -0,0 +1,182 @@
+package org.example;
+
+import io.qameta.allure.Step;
+import io.restassured.filter.Filter;
+import io.restassured.response.Response;
+import org.json.JSONObject;
+import org.testng.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Общий кэш access-токенов: один логин на пару email/пароль, повторный логин
+ * только по истечении токена или после ответа 401.
+ * Срок токенов проверяется по {@link #clock(Clock)}: при воспроизведении кассеты это время записи,
+ * иначе записанные токены истекли бы и вызвали логин, которого нет в кассете.
+ */
+public final class TokenProvider {
+
+    private static final TokenProvider SHARED = new TokenProvider();
+
+    private static final String BEARER = "Bearer ";
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+    private static final Duration EXPIRY_MARGIN = Duration.ofSeconds(30);
+    private static final JsonFields LOGIN_FIELDS = JsonFields.of("accessToken", "user.id");
+
+    private final Map<Credentials, Session> sessions = new ConcurrentHashMap<>();
+    private final Map<Credentials, Lock> locks = new ConcurrentHashMap<>();
+    // Токены, заменённые после 401, и их владельцы: TestData теста всё ещё держит старый токен
+    private final Map<String, Credentials> replaced = new ConcurrentHashMap<>();
+    private final ThreadLocal<Boolean> refreshing = ThreadLocal.withInitial(() -> false);
+    private volatile Clock clock = Clock.systemUTC();
+
+    public static TokenProvider shared() {
+        return SHARED;
+    }
+
+    public void clock(Clock clock) {
+        this.clock = clock;
+    }
+
+    public Session session(String email, String password) {
+        Credentials credentials = new Credentials(email, password);
+        Session session = sessions.get(credentials);
+        if (session != null && !expired(session)) {
+            return session;
+        }
+        // Лок на пару учётных данных: параллельные потоки дождутся одного логина. ReentrantLock, а не
+        // compute/synchronized, чтобы ожидающие виртуальные потоки не занимали carrier-потоки
+        Lock lock = locks.computeIfAbsent(credentials, key -> new ReentrantLock());
+        lock.lock();
+        try {
+            session = sessions.get(credentials);
+            if (session == null || expired(session)) {
+                session = login(credentials);
+                sessions.put(credentials, session);
+            }
+            return session;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void fill(TestData testData) {
+        Session session = session(testData.testUserEmail, testData.testUserPassword);
+        testData.accessToken = session.accessToken();
+        testData.userId = session.userId();
+    }
+
+    /**
+     * Кладёт в кэш уже известную сессию (токен из ответа signup или сохранённый с прошлого прогона).
+     * Просроченная сессия не кладётся — при первом обращении будет обычный логин.
+     */
+    public void remember(String email, String password, Session session) {
+        if (!expired(session)) {
+            sessions.put(new Credentials(email, password), session);
+        }
+    }
+
+    /**
+     * Сессия из кэша без логина или null.
+     */
+    public Session cached(String email, String password) {
+        return sessions.get(new Credentials(email, password));
+    }
+
+    public void invalidate(String accessToken) {
+        sessions.values().removeIf(session -> session.accessToken().equals(accessToken));
+    }
+
+    /**
+     * Фильтр RestAssured: при 401 на токен из кэша перелогинивается и повторяет запрос один раз.
+     * Заменённый токен запоминается, и следующие запросы с ним (из того же TestData) сразу уходят
+     * с действующим. Чужие токены (например, заведомо невалидные в негативных тестах) не трогает.
+     */
+    public Filter refreshOnUnauthorized() {
+        return (request, response, context) -> {
+            String token = bearer(request.getHeaders().getValue("Authorization"));
+            Credentials previousOwner = token != null ? replaced.get(token) : null;
+            if (previousOwner != null) {
+                token = session(previousOwner.email(), previousOwner.password()).accessToken();
+                request.replaceHeader("Authorization", BEARER + token);
+            }
+            Response result = context.next(request, response);
+            if (result.statusCode() != 401 || refreshing.get() || token == null) {
+                return result;
+            }
+            Credentials owner = ownerOf(token);
+            if (owner == null) {
+                return result;
+            }
+            replaced.put(token, owner);
+            invalidate(token);
+            request.replaceHeader("Authorization", BEARER + session(owner.email(), owner.password()).accessToken());
+            refreshing.set(true);
+            try {
+                return context.send(request);
+            } finally {
+                refreshing.set(false);
+            }
+        };
+    }
+
+    private static String bearer(String authorization) {
+        return authorization != null && authorization.startsWith(BEARER) ? authorization.substring(BEARER.length()) : null;
+    }
+
+    private boolean expired(Session session) {
+        return clock.instant().isAfter(session.expiresAt().minus(EXPIRY_MARGIN));
+    }
+
+    private Credentials ownerOf(String accessToken) {
+        for (Map.Entry<Credentials, Session> entry : sessions.entrySet()) {
+            if (entry.getValue().accessToken().equals(accessToken)) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    @Step("Login user and obtain access token")
+    private Session login(Credentials credentials) {
+        Response response = ApiSpecs.api(Endpoint.LOGIN)
+                .body("{\"email\":\"" + credentials.email() + "\",\"password\":\"" + credentials.password() + "\"}")
+                .when()
+                .post();
+
+        Assert.assertEquals(response.statusCode(), 200, "User login failed");
+        JsonFields.Values fields = LOGIN_FIELDS.read(response);
+        String accessToken = fields.get("accessToken");
+        return new Session(accessToken, fields.get("user.id"), expiryOf(accessToken));
+    }
+
+    // Если токен — JWT с claim "exp", берём срок оттуда, иначе считаем его живым DEFAULT_TTL
+    static Instant expiryOf(String accessToken) {
+        Instant fallback = Instant.now().plus(DEFAULT_TTL);
+        String[] parts = accessToken == null ? new String[0] : accessToken.split("\\.");
+        if (parts.length != 3) {
+            return fallback;
+        }
+        try {
+            String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8);
+            JSONObject claims = new JSONObject(payload);
+            return claims.has("exp") ? Instant.ofEpochSecond(claims.getLong("exp")) : fallback;
+        } catch (RuntimeException e) {
+            return fallback;
+        }
+    }
+
+    private record Credentials(String email, String password) {
+    }
+
+    public record Session(String accessToken, String userId, Instant expiresAt) {
+    }
+}
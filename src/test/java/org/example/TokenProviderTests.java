@@ -0,0 +1,42 @@
+package org.example;
+
+import io.qameta.allure.Description;
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import io.restassured.response.Response;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+@Epic("Инфраструктура тестов")
+public class TokenProviderTests {
+
+    @Test
+    @Feature("Кэш токенов")
+    @Description("После 401 на отозванный токен первый и все следующие запросы с тем же TestData проходят с новым токеном.")
+    public void givenRevokedToken_whenRequestsRepeated_thenEveryRequestRefreshed() {
+        SoftAssert softAssert = new SoftAssert();
+        TestData testData = TestContext.start();
+        try {
+            // Токен, которого сервер не знает, — как отозванный: для кэша он принадлежит арендованному пользователю
+            String revoked = "revoked-" + UUID.randomUUID();
+            TokenProvider.shared().remember(testData.testUserEmail, testData.testUserPassword,
+                    new TokenProvider.Session(revoked, testData.userId, Instant.now().plus(Duration.ofHours(1))));
+            TokenProvider.shared().fill(testData);
+            softAssert.assertEquals(testData.accessToken, revoked, "Revoked token was not cached");
+
+            for (int i = 0; i < 3; i++) {
+                Response whoAmI = ApiSpecs.authorized(testData, Endpoint.WHO_AM_I).get();
+                softAssert.assertEquals(whoAmI.statusCode(), 200, "whoami #" + (i + 1) + " with a stale token");
+            }
+            softAssert.assertNotEquals(TokenProvider.shared().cached(testData.testUserEmail, testData.testUserPassword).accessToken(),
+                    revoked, "Revoked token is still cached");
+        } finally {
+            TestContext.clear();
+        }
+        softAssert.assertAll();
+    }
+}
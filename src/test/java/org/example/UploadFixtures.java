@@ -0,0 +1,113 @@
+package org.example;
+
+import io.restassured.builder.MultiPartSpecBuilder;
+import io.restassured.specification.MultiPartSpecification;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Файловые части multipart-запросов. Картинки из ресурсов читаются один раз, и готовая
+ * {@link MultiPartSpecification} переиспользуется всеми запросами и потоками: тело — общий
+ * неизменяемый массив, который HttpClient пишет в сокет без копирования.
+ * Для больших загрузок {@link #generated} отдаёт поток, генерируемый на лету, без буфера в куче.
+ */
+public final class UploadFixtures {
+
+    public static final String CONTROL_NAME = "file";
+    public static final String MIME_TYPE = "image/png";
+
+    private static final Map<String, MultiPartSpecification> IMAGES = new ConcurrentHashMap<>();
+
+    private UploadFixtures() {
+    }
+
+    /**
+     * @param resource имя файла в src/main/resources, например "sc.png"
+     */
+    public static MultiPartSpecification image(String resource) {
+        return IMAGES.computeIfAbsent(resource, UploadFixtures::load);
+    }
+
+    /**
+     * Часть с size байтами, которые генерируются при отправке (передаётся chunked).
+     * Поток одноразовый, поэтому спецификация создаётся на каждый запрос.
+     */
+    public static MultiPartSpecification generated(String fileName, long size) {
+        return new MultiPartSpecBuilder(new GeneratedImageStream(size))
+                .controlName(CONTROL_NAME)
+                .fileName(fileName)
+                .mimeType(MIME_TYPE)
+                .build();
+    }
+
+    private static MultiPartSpecification load(String resource) {
+        try (InputStream in = UploadFixtures.class.getResourceAsStream("/" + resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No such resource: " + resource);
+            }
+            return new MultiPartSpecBuilder(in.readAllBytes())
+                    .controlName(CONTROL_NAME)
+                    .fileName(resource)
+                    .mimeType(MIME_TYPE)
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + resource, e);
+        }
+    }
+
+    /**
+     * Сигнатура PNG и детерминированный псевдослучайный хвост; в памяти только состояние генератора.
+     * Полный размер — {@link #length()}, по нему {@link MetricsFilter} считает байты отправки.
+     */
+    static final class GeneratedImageStream extends InputStream {
+
+        private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+        private final long size;
+        private long position;
+        private long seed = 0x5DEECE66DL;
+
+        GeneratedImageStream(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public int read() {
+            if (position >= size) {
+                return -1;
+            }
+            return next() & 0xFF;
+        }
+
+        long length() {
+            return size;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (position >= size) {
+                return -1;
+            }
+            int count = (int) Math.min(length, size - position);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = next();
+            }
+            return count;
+        }
+
+        private byte next() {
+            long at = position++;
+            if (at < PNG_SIGNATURE.length) {
+                return PNG_SIGNATURE[(int) at];
+            }
+            seed ^= seed << 13;
+            seed ^= seed >>> 7;
+            seed ^= seed << 17;
+            return (byte) seed;
+        }
+    }
+}
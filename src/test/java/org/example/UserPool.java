@@ -0,0 +1,350 @@
+package org.example;
+
+import io.qameta.allure.Step;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пул тестовых пользователей, зарегистрированных через {@link Endpoint#SIGNUP}: каждый поток
+ * на время теста арендует своего пользователя, поэтому параллельные тесты не делят
+ * профиль и посты одного аккаунта.
+ * <p>
+ * Учётные данные и токены сохраняются в файл (по умолчанию users/pool.json) отдельно для каждого
+ * адреса API и при следующем прогоне переиспользуются: живой токен берётся как есть, остальные
+ * пользователи логинятся параллельно, недостающие регистрируются параллельно.
+ * <p>
+ * Пул заполняется сам при первой аренде, а не на старте сьюта, так что прогон без тестов API
+ * никого не регистрирует. Размер: -Dusers.pool (по умолчанию -Dthreads, иначе 1; 0 — все тесты
+ * под общим аккаунтом {@link TestContext#DEFAULT_EMAIL}, он же отдаётся, пока пул пуст).
+ * Размер — предел: когда все пользователи заняты, аренда ждёт освободившегося до -Dusers.leaseTimeout
+ * (PT1M) и падает, а не регистрирует новых — удалить аккаунты через API нельзя.
+ * Файл: -Dusers.file (users/pool.json, пустое значение — не сохранять). При записи или
+ * воспроизведении кассеты файл не используется, иначе логины сохранённых пользователей
+ * не совпадут с записанными запросами.
+ */
+public final class UserPool implements AutoCloseable {
+
+    private static final UserPool SHARED = new UserPool(null);
+    private static final JsonFields SESSION_FIELDS = JsonFields.of("accessToken", "user.id");
+    private static final String DEFAULT_FILE = "users/pool.json";
+
+    private final String baseUrl;
+    private final Duration leaseTimeout;
+    private final List<User> users = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<User> free = new LinkedBlockingQueue<>();
+    private final ThreadLocal<User> leased = new ThreadLocal<>();
+    private volatile boolean provisioned;
+    // null — ещё не нужен или пул закрыт; создаётся заново при следующем заполнении
+    private ExecutorService background;
+
+    /**
+     * @param baseUrl адрес API для регистрации и логина; null — {@link Endpoint#baseUrl()} на момент запроса.
+     *                Отдельные экземпляры — только для тестов самого пула
+     */
+    UserPool(String baseUrl) {
+        this(baseUrl, Duration.parse(System.getProperty("users.leaseTimeout", "PT1M")));
+    }
+
+    UserPool(String baseUrl, Duration leaseTimeout) {
+        this.baseUrl = baseUrl;
+        this.leaseTimeout = leaseTimeout;
+    }
+
+    public static UserPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Готовит count пользователей: сохранённые (не больше count) плюс недостающие.
+     * file == null — без сохранения между прогонами.
+     */
+    @Step("Provision {count} test users")
+    public synchronized void provision(int count, Path file) {
+        List<User> stored = file != null ? load(file) : List.of();
+        stored = stored.subList(0, Math.min(stored.size(), count));
+        List<CompletableFuture<User>> batch = new ArrayList<>();
+        for (User user : stored) {
+            batch.add(CompletableFuture.supplyAsync(() -> restore(user), background()));
+        }
+        for (int i = stored.size(); i < count; i++) {
+            batch.add(CompletableFuture.supplyAsync(this::signup, background()));
+        }
+        List<User> ready = new ArrayList<>();
+        for (CompletableFuture<User> future : batch) {
+            User user = future.join();
+            // Сохранённый пользователь, под которым уже не войти, заменяется новым
+            ready.add(user != null ? user : signup());
+        }
+        users.addAll(ready);
+        free.addAll(ready);
+        if (file != null) {
+            save(file);
+        }
+        provisioned = true;
+    }
+
+    /**
+     * Пользователь для текущего потока с действующим токеном. Повторный вызов до {@link #release()}
+     * возвращает того же пользователя; если свободных нет, ждёт освобождения не дольше users.leaseTimeout.
+     */
+    public TestData lease() {
+        User user = leased.get();
+        if (user == null) {
+            ensureProvisioned();
+            user = users.isEmpty() ? User.DEFAULT : take();
+            leased.set(user);
+        }
+        return user.testData();
+    }
+
+    /**
+     * Учётные данные, арендованные текущим потоком, или общий аккаунт, если аренды нет.
+     */
+    public User current() {
+        User user = leased.get();
+        return user != null ? user : User.DEFAULT;
+    }
+
+    public void release() {
+        User user = leased.get();
+        leased.remove();
+        if (user != null && user != User.DEFAULT) {
+            free.add(user);
+        }
+    }
+
+    public List<User> users() {
+        return List.copyOf(users);
+    }
+
+    /**
+     * Пользователи пула; при первом вызове пул заполняется, как при первой аренде.
+     */
+    public List<User> ready() {
+        ensureProvisioned();
+        return users();
+    }
+
+    /**
+     * Записывает пользователей и их текущие токены; записи других адресов API сохраняются,
+     * кроме локальных — заглушка при следующем запуске их уже не знает.
+     */
+    public void save(Path file) {
+        JSONObject pools = file.toFile().isFile() ? read(file) : new JSONObject();
+        for (String address : new ArrayList<>(pools.keySet())) {
+            if (isLoopback(address)) {
+                pools.remove(address);
+            }
+        }
+        JSONArray entries = new JSONArray();
+        for (User user : users) {
+            JSONObject entry = new JSONObject().put("email", user.email()).put("password", user.password());
+            TokenProvider.Session session = TokenProvider.shared().cached(user.email(), user.password());
+            if (session != null) {
+                entry.put("accessToken", session.accessToken())
+                        .put("userId", session.userId())
+                        .put("expiresAt", session.expiresAt().getEpochSecond());
+            }
+            entries.put(entry);
+        }
+        pools.put(baseUrl(), entries);
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(temporary, pools.toString(2), StandardCharsets.UTF_8);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot save user pool to " + file, e);
+        }
+    }
+
+    /**
+     * Забывает всех пользователей пула; файл не трогает. Следующая аренда заполнит пул заново.
+     */
+    public void clear() {
+        users.clear();
+        free.clear();
+        provisioned = false;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (background != null) {
+            background.shutdown();
+            background = null;
+        }
+    }
+
+    /**
+     * Файл пула из -Dusers.file; null — не сохранять (пустое значение или запись/воспроизведение кассеты).
+     */
+    static Path defaultFile() {
+        String file = System.getProperty("users.file", DEFAULT_FILE);
+        String cassette = System.getProperty("api.cassette");
+        if (file.isBlank() || cassette != null && !cassette.isBlank()) {
+            return null;
+        }
+        return Path.of(file);
+    }
+
+    private void ensureProvisioned() {
+        if (provisioned) {
+            return;
+        }
+        synchronized (this) {
+            if (!provisioned) {
+                int size = Integer.getInteger("users.pool", Integer.getInteger("threads", 1));
+                if (size > 0) {
+                    provision(size, defaultFile());
+                }
+                provisioned = true;
+            }
+        }
+    }
+
+    private User take() {
+        try {
+            User user = free.poll(leaseTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            if (user == null) {
+                throw new IllegalStateException("No free pooled user within " + leaseTimeout + ": all " + users.size()
+                        + " are leased, raise -Dusers.pool");
+            }
+            return user;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a pooled user", e);
+        }
+    }
+
+    private synchronized ExecutorService background() {
+        if (background == null) {
+            background = Executors.newFixedThreadPool(Integer.getInteger("users.threads", 4), runnable -> {
+                Thread thread = new Thread(runnable, "user-pool");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return background;
+    }
+
+    private String baseUrl() {
+        return baseUrl != null ? baseUrl : Endpoint.baseUrl();
+    }
+
+    private RequestSpecification api(Endpoint endpoint) {
+        RequestSpecification request = ApiSpecs.api(endpoint);
+        return baseUrl != null ? request.baseUri(baseUrl) : request;
+    }
+
+    private List<User> load(Path file) {
+        if (!file.toFile().isFile()) {
+            return List.of();
+        }
+        JSONArray entries = read(file).optJSONArray(baseUrl());
+        if (entries == null) {
+            return List.of();
+        }
+        List<User> stored = new ArrayList<>();
+        for (int i = 0; i < entries.length(); i++) {
+            JSONObject entry = entries.getJSONObject(i);
+            User user = new User(entry.getString("email"), entry.getString("password"));
+            if (entry.has("accessToken")) {
+                TokenProvider.shared().remember(user.email(), user.password(), new TokenProvider.Session(
+                        entry.getString("accessToken"), entry.getString("userId"), Instant.ofEpochSecond(entry.getLong("expiresAt"))));
+            }
+            stored.add(user);
+        }
+        return stored;
+    }
+
+    // Живой токен из файла уже в кэше TokenProvider; иначе логин, null — пользователя больше нет
+    private User restore(User user) {
+        if (TokenProvider.shared().cached(user.email(), user.password()) != null) {
+            return user;
+        }
+        Response response = api(Endpoint.LOGIN)
+                .body(credentials(user).toString())
+                .when()
+                .post();
+        return response.statusCode() == 200 ? remember(user, response) : null;
+    }
+
+    // UUID в адресе и пароле — кассета нормализует их, и регистрация воспроизводится в любом прогоне
+    private User signup() {
+        User user = new User("pool-" + UUID.randomUUID() + "@example.com", UUID.randomUUID().toString());
+        Response response = api(Endpoint.SIGNUP)
+                .body(credentials(user).put("firstName", "Pool").put("lastName", "User").toString())
+                .when()
+                .post();
+        if (response.statusCode() != 201 && response.statusCode() != 200) {
+            throw new IllegalStateException("Cannot sign up pooled user: " + response.statusCode() + " " + response.asString());
+        }
+        return remember(user, response);
+    }
+
+    private static User remember(User user, Response response) {
+        JsonFields.Values fields = SESSION_FIELDS.read(response);
+        String accessToken = fields.get("accessToken");
+        if (accessToken != null) {
+            TokenProvider.shared().remember(user.email(), user.password(),
+                    new TokenProvider.Session(accessToken, fields.get("user.id"), TokenProvider.expiryOf(accessToken)));
+        }
+        return user;
+    }
+
+    private static JSONObject credentials(User user) {
+        return new JSONObject().put("email", user.email()).put("password", user.password());
+    }
+
+    private static JSONObject read(Path file) {
+        try {
+            return new JSONObject(Files.readString(file, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read user pool " + file, e);
+        }
+    }
+
+    private static boolean isLoopback(String baseUrl) {
+        String host = URI.create(baseUrl).getHost();
+        return Objects.equals(host, "localhost") || host != null && host.startsWith("127.");
+    }
+
+    public record User(String email, String password) {
+
+        static final User DEFAULT = new User(TestContext.DEFAULT_EMAIL, TestContext.DEFAULT_PASSWORD);
+
+        /**
+         * TestData с учётными данными и токеном из {@link TokenProvider}.
+         */
+        public TestData testData() {
+            TestData testData = new TestData();
+            testData.testUserEmail = email;
+            testData.testUserPassword = password;
+            TokenProvider.shared().fill(testData);
+            return testData;
+        }
+    }
+}
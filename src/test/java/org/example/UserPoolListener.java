@@ -0,0 +1,23 @@
+package org.example;
+
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+
+import java.nio.file.Path;
+
+/**
+ * После сьюта сохраняет пользователей {@link UserPool} со свежими токенами и освобождает пул.
+ * Заполняется пул сам при первой аренде, поэтому от порядка слушателей ничего не зависит.
+ */
+public class UserPoolListener implements ISuiteListener {
+
+    @Override
+    public void onFinish(ISuite suite) {
+        Path file = UserPool.defaultFile();
+        if (file != null && !UserPool.shared().users().isEmpty()) {
+            UserPool.shared().save(file);
+        }
+        UserPool.shared().clear();
+        UserPool.shared().close();
+    }
+}
@@ -0,0 +1,46 @@
+package org.example;
+
+import io.qameta.allure.Description;
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+@Epic("Инфраструктура тестов")
+public class UserPoolTests {
+
+    @Test
+    @Feature("Пул тестовых пользователей")
+    @Description("Сохранённые пользователи переиспользуются следующим прогоном, параллельные потоки получают разных пользователей, а сверх размера пула никто не регистрируется.")
+    public void givenSavedPool_whenProvisionedAgain_thenUsersReusedAndLeasedDistinctly() throws Exception {
+        Path file = Files.createTempDirectory("user-pool").resolve("pool.json");
+        SoftAssert softAssert = new SoftAssert();
+
+        // Своя заглушка: тест пула не регистрирует пользователей на настоящем API
+        try (NewsApiStub stub = new NewsApiStub(0).start();
+             UserPool first = new UserPool(stub.baseUrl());
+             UserPool second = new UserPool(stub.baseUrl(), Duration.ofMillis(100))) {
+            first.provision(2, file);
+            second.provision(2, file);
+
+            softAssert.assertEquals(second.users(), first.users(), "Saved users were not reused");
+            softAssert.assertEquals(stub.userCount(), 2, "Users were signed up again");
+            TestData mine = second.lease();
+            TestData other = CompletableFuture.supplyAsync(second::lease).join();
+            softAssert.assertNotEquals(other.testUserEmail, mine.testUserEmail, "Threads leased the same user");
+            softAssert.assertNotNull(mine.accessToken, "Leased user has no token");
+            Throwable third = CompletableFuture.supplyAsync(second::lease).handle((leased, error) -> error).join();
+            softAssert.assertTrue(third != null && third.getCause() instanceof IllegalStateException,
+                    "Exhausted pool must fail the lease, got " + third);
+            softAssert.assertEquals(stub.userCount(), 2, "Exhausted pool signed up another user");
+            second.release();
+        }
+
+        softAssert.assertAll();
+    }
+}